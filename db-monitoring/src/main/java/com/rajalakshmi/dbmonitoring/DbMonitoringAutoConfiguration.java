@@ -0,0 +1,87 @@
+package com.rajalakshmi.dbmonitoring;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+
+@AutoConfiguration
+@EnableConfigurationProperties(DbMonitoringProperties.class)
+public class DbMonitoringAutoConfiguration {
+
+    // Static so wrapping the DataSource does not pull the rest of this configuration in early
+    @Bean
+    public static BeanPostProcessor monitoredDataSourcePostProcessor(ObjectProvider<QueryMonitor> queryMonitor) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof MonitoredDataSource)) {
+                    return new MonitoredDataSource(dataSource, queryMonitor);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityLoadCounter() {
+        return properties -> properties.put(AvailableSettings.INTERCEPTOR, new EntityLoadCounter());
+    }
+
+    @Bean
+    public QueryMonitor queryMonitor() {
+        return new QueryMonitor();
+    }
+
+    @Bean
+    public DbRequestStatsFilter dbRequestStatsFilter() {
+        return new DbRequestStatsFilter();
+    }
+
+    @Bean
+    public SlowQueryEndpoint slowQueryEndpoint() {
+        return new SlowQueryEndpoint();
+    }
+
+    // Ahead of the service's own chain, which permits everything. Actuator endpoints other than health need
+    // the monitoring user, and are closed to everyone while no password is configured.
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http, DbMonitoringProperties properties)
+            throws Exception {
+        http.securityMatcher(EndpointRequest.toAnyEndpoint().excluding(HealthEndpoint.class))
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .httpBasic(Customizer.withDefaults());
+        if (!StringUtils.hasText(properties.getActuatorPassword())) {
+            return http.authorizeHttpRequests(auth -> auth.anyRequest().denyAll()).build();
+        }
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(User
+                .withUsername(properties.getActuatorUsername())
+                .password("{noop}" + properties.getActuatorPassword())
+                .roles("ACTUATOR")
+                .build());
+        // Its own manager, so the service's user accounts cannot read the actuator endpoints
+        return http.authenticationManager(new ProviderManager(new DaoAuthenticationProvider(users)))
+                .authorizeHttpRequests(auth -> auth.anyRequest().hasRole("ACTUATOR"))
+                .build();
+    }
+}
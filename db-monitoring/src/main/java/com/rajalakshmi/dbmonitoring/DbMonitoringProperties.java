@@ -0,0 +1,63 @@
+package com.rajalakshmi.dbmonitoring;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "db.monitoring")
+public class DbMonitoringProperties {
+
+    // Statements at least this slow go to the slow-query log
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+
+    // Most recent slow queries kept for the slowqueries actuator endpoint
+    private int slowQueryLogSize = 100;
+
+    // A request issuing more statements than this is logged as a likely N+1
+    private int requestStatementThreshold = 20;
+
+    // HTTP basic credentials for the actuator endpoints other than health; without a password they are closed
+    private String actuatorUsername = "monitoring";
+
+    private String actuatorPassword;
+
+    public Duration getSlowQueryThreshold() {
+        return slowQueryThreshold;
+    }
+
+    public void setSlowQueryThreshold(Duration slowQueryThreshold) {
+        this.slowQueryThreshold = slowQueryThreshold;
+    }
+
+    public int getSlowQueryLogSize() {
+        return slowQueryLogSize;
+    }
+
+    public void setSlowQueryLogSize(int slowQueryLogSize) {
+        this.slowQueryLogSize = slowQueryLogSize;
+    }
+
+    public int getRequestStatementThreshold() {
+        return requestStatementThreshold;
+    }
+
+    public void setRequestStatementThreshold(int requestStatementThreshold) {
+        this.requestStatementThreshold = requestStatementThreshold;
+    }
+
+    public String getActuatorUsername() {
+        return actuatorUsername;
+    }
+
+    public void setActuatorUsername(String actuatorUsername) {
+        this.actuatorUsername = actuatorUsername;
+    }
+
+    public String getActuatorPassword() {
+        return actuatorPassword;
+    }
+
+    public void setActuatorPassword(String actuatorPassword) {
+        this.actuatorPassword = actuatorPassword;
+    }
+}
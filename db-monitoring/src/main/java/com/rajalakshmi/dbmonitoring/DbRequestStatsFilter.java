@@ -0,0 +1,69 @@
+package com.rajalakshmi.dbmonitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records statements issued and entities loaded per request, and logs requests that look like N+1 queries.
+ */
+public class DbRequestStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(DbRequestStatsFilter.class);
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private DbMonitoringProperties properties;
+
+    // Keyed by method and matched handler pattern, so building and registering happens once per endpoint
+    private final Map<String, RequestMeters> meters = new ConcurrentHashMap<>();
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestDbStats stats = RequestDbStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestDbStats.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            String method = request.getMethod();
+            RequestMeters requestMeters = meters.computeIfAbsent(method + " " + uri, key -> new RequestMeters(
+                    summary("db.request.statements", "JDBC statements executed per request", method, uri),
+                    summary("db.request.entity.loads", "Entities loaded by Hibernate per request", method, uri)));
+            requestMeters.statements().record(stats.getStatements());
+            requestMeters.entityLoads().record(stats.getEntityLoads());
+            if (stats.getStatements() > properties.getRequestStatementThreshold()) {
+                log.warn("Possible N+1: {} {} executed {} statements and loaded {} entities",
+                        method, uri, stats.getStatements(), stats.getEntityLoads());
+            }
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, String method, String uri) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("method", method)
+                .tag("uri", uri)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private record RequestMeters(DistributionSummary statements, DistributionSummary entityLoads) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.rajalakshmi.dbmonitoring;
+
+import org.hibernate.Interceptor;
+import org.hibernate.type.Type;
+
+/**
+ * Counts entity loads per request; registered as the session factory interceptor.
+ */
+public class EntityLoadCounter implements Interceptor {
+
+    @Override
+    public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types) {
+        RequestDbStats.entityLoaded();
+        return false;
+    }
+}
@@ -0,0 +1,112 @@
+package com.rajalakshmi.dbmonitoring;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the pooled DataSource so every statement execution is reported to the {@link QueryMonitor}.
+ * Only the execute call is timed; rows fetched afterwards from a ResultSet are not included.
+ */
+public class MonitoredDataSource extends DelegatingDataSource {
+
+    private final ObjectProvider<QueryMonitor> monitorProvider;
+
+    private volatile QueryMonitor monitor;
+
+    public MonitoredDataSource(DataSource target, ObjectProvider<QueryMonitor> monitorProvider) {
+        super(target);
+        this.monitorProvider = monitorProvider;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object identity = identity(proxy, method, args);
+                    if (identity != null) {
+                        return identity;
+                    }
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement
+                            && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                        return wrap(statement, method.getReturnType(), sql, (Connection) proxy);
+                    }
+                    return result;
+                });
+    }
+
+    private Statement wrap(Statement statement, Class<?> type, String preparedSql, Connection connection) {
+        String[] lastBatchSql = new String[1];
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    Object identity = identity(proxy, method, args);
+                    if (identity != null) {
+                        return identity;
+                    }
+                    String name = method.getName();
+                    if (name.equals("getConnection")) {
+                        return connection;
+                    }
+                    if (name.equals("addBatch") && args != null && args.length == 1) {
+                        lastBatchSql[0] = (String) args[0];
+                    }
+                    if (!name.startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s
+                            : preparedSql != null ? preparedSql : lastBatchSql[0];
+                    long start = System.nanoTime();
+                    boolean failed = true;
+                    try {
+                        Object result = invoke(statement, method, args);
+                        failed = false;
+                        return result;
+                    } finally {
+                        monitor().record(sql, System.nanoTime() - start, failed);
+                    }
+                });
+    }
+
+    private QueryMonitor monitor() {
+        QueryMonitor current = monitor;
+        if (current == null) {
+            current = monitorProvider.getObject();
+            monitor = current;
+        }
+        return current;
+    }
+
+    private static Object identity(Object proxy, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> null;
+        };
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.rajalakshmi.dbmonitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives every JDBC statement execution from {@link MonitoredDataSource}: times it by statement type,
+ * counts it against the current request and keeps the slow ones, by fingerprint only, in a bounded log.
+ */
+public class QueryMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryMonitor.class);
+
+    private static final List<String> TYPES = List.of("select", "insert", "update", "delete", "other");
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private DbMonitoringProperties properties;
+
+    private Map<String, Timer> timers;
+
+    // Guarded by itself; oldest entries are dropped once slowQueryLogSize is reached
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    @PostConstruct
+    public void registerMeters() {
+        Map<String, Timer> byType = new HashMap<>();
+        for (String type : TYPES) {
+            byType.put(type, Timer.builder("db.statements")
+                    .description("JDBC statement execution time")
+                    .tag("type", type)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        timers = Map.copyOf(byType);
+    }
+
+    public void record(String sql, long nanos, boolean failed) {
+        RequestDbStats.statementExecuted();
+        timers.get(SqlFingerprint.type(sql)).record(nanos, TimeUnit.NANOSECONDS);
+        if (nanos >= properties.getSlowQueryThreshold().toNanos()) {
+            SlowQuery slowQuery = new SlowQuery(SqlFingerprint.of(sql), TimeUnit.NANOSECONDS.toMillis(nanos),
+                    failed, Instant.now());
+            log.warn("Slow query took {} ms{}: {}", slowQuery.durationMillis(), failed ? " and failed" : "",
+                    slowQuery.fingerprint());
+            synchronized (slowQueries) {
+                slowQueries.addLast(slowQuery);
+                while (slowQueries.size() > properties.getSlowQueryLogSize()) {
+                    slowQueries.removeFirst();
+                }
+            }
+        }
+    }
+
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public record SlowQuery(String fingerprint, long durationMillis, boolean failed, Instant at) {
+    }
+}
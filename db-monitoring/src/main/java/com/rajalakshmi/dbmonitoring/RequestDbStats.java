@@ -0,0 +1,47 @@
+package com.rajalakshmi.dbmonitoring;
+
+/**
+ * Database work done for the HTTP request being handled on the current thread.
+ */
+public final class RequestDbStats {
+
+    private static final ThreadLocal<RequestDbStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private int entityLoads;
+
+    private RequestDbStats() {
+    }
+
+    static RequestDbStats begin() {
+        RequestDbStats stats = new RequestDbStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    static void statementExecuted() {
+        RequestDbStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+        }
+    }
+
+    static void entityLoaded() {
+        RequestDbStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.entityLoads++;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntityLoads() {
+        return entityLoads;
+    }
+}
@@ -0,0 +1,45 @@
+package com.rajalakshmi.dbmonitoring;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * {@code /actuator/slowqueries}: the recent slow-query log, plus the same entries grouped by fingerprint.
+ */
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    @Autowired
+    private QueryMonitor queryMonitor;
+
+    @Autowired
+    private DbMonitoringProperties properties;
+
+    @ReadOperation
+    public Map<String, Object> slowQueries() {
+        List<QueryMonitor.SlowQuery> recent = queryMonitor.getSlowQueries();
+        List<SlowQueryGroup> byFingerprint = recent.stream()
+                .collect(Collectors.groupingBy(QueryMonitor.SlowQuery::fingerprint))
+                .entrySet().stream()
+                .map(entry -> new SlowQueryGroup(entry.getKey(), entry.getValue().size(),
+                        entry.getValue().stream().mapToLong(QueryMonitor.SlowQuery::durationMillis).max().orElse(0)))
+                .sorted(Comparator.comparingInt(SlowQueryGroup::count).reversed())
+                .toList();
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("thresholdMillis", properties.getSlowQueryThreshold().toMillis());
+        result.put("byFingerprint", byFingerprint);
+        result.put("recent", recent);
+        return result;
+    }
+
+    public record SlowQueryGroup(String fingerprint, int count, long maxMillis) {
+    }
+}
@@ -0,0 +1,230 @@
+package com.rajalakshmi.dbmonitoring;
+
+import java.util.Locale;
+
+/**
+ * Normalises SQL into a fingerprint that is safe to log: literals become {@code ?}, so inlined values
+ * never reach the logs, and statements differing only in their values share one fingerprint.
+ * <p>
+ * A single left-to-right scan, so a quote opened inside a comment or a comment marker inside a literal
+ * ({@code 'a--b'}) cannot hide the rest of the statement from masking. Understands {@code ''} escapes,
+ * {@code E'..'} backslash escapes and {@code $tag$..$tag$} dollar quoting; an unterminated literal masks
+ * everything after it.
+ */
+public final class SqlFingerprint {
+
+    private SqlFingerprint() {
+    }
+
+    public static String of(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        int length = sql.length();
+        StringBuilder out = new StringBuilder(length);
+        boolean space = false;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                space = true;
+                i++;
+                continue;
+            }
+            if (c == '-' && next == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+                space = true;
+                continue;
+            }
+            if (c == '/' && next == '*') {
+                i = blockCommentEnd(sql, i);
+                space = true;
+                continue;
+            }
+            if (space && out.length() > 0) {
+                out.append(' ');
+            }
+            space = false;
+            int end;
+            if (c == '\'') {
+                i = stringEnd(sql, i + 1, false);
+                out.append('?');
+            } else if ((c == 'e' || c == 'E') && next == '\'' && !followsWord(sql, i)) {
+                i = stringEnd(sql, i + 2, true);
+                out.append('?');
+            } else if (c == '$' && (end = dollarQuoteEnd(sql, i)) > 0) {
+                i = end;
+                out.append('?');
+            } else if (c == '"') {
+                end = sql.indexOf('"', i + 1);
+                end = end < 0 ? length : end + 1;
+                out.append(sql, i, end);
+                i = end;
+            } else if (Character.isDigit(c) && !followsWord(sql, i)) {
+                end = numberEnd(sql, i);
+                if (end < length && isWordChar(sql.charAt(end))) {
+                    while (end < length && isWordChar(sql.charAt(end))) {
+                        end++;
+                    }
+                    out.append(sql.substring(i, end).toLowerCase(Locale.ROOT));
+                } else {
+                    out.append('?');
+                }
+                i = end;
+            } else if (c == ')') {
+                out.append(')');
+                collapseInList(out);
+                i++;
+            } else {
+                out.append(Character.toLowerCase(c));
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Leading keyword of a statement, used as a low-cardinality metric tag.
+     */
+    public static String type(String sql) {
+        if (sql == null) {
+            return "other";
+        }
+        int start = 0;
+        while (start < sql.length() && (Character.isWhitespace(sql.charAt(start)) || sql.charAt(start) == '(')) {
+            start++;
+        }
+        for (String type : new String[]{"select", "insert", "update", "delete", "with"}) {
+            if (sql.regionMatches(true, start, type, 0, type.length())) {
+                return type.equals("with") ? "select" : type;
+            }
+        }
+        return "other";
+    }
+
+    private static int blockCommentEnd(String sql, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < sql.length() - 1) {
+            if (sql.charAt(i) == '/' && sql.charAt(i + 1) == '*') {
+                depth++;
+                i += 2;
+            } else if (sql.charAt(i) == '*' && sql.charAt(i + 1) == '/') {
+                i += 2;
+                if (--depth == 0) {
+                    return i;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    private static int stringEnd(String sql, int start, boolean backslashEscapes) {
+        int i = start;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (backslashEscapes && c == '\\') {
+                i += 2;
+            } else if (c == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    /**
+     * End of a {@code $tag$...$tag$} literal starting at {@code start}, or -1 when the {@code $} does not
+     * open one (e.g. a {@code $1} parameter).
+     */
+    private static int dollarQuoteEnd(String sql, int start) {
+        int i = start + 1;
+        if (i < sql.length() && (Character.isLetter(sql.charAt(i)) || sql.charAt(i) == '_')) {
+            while (i < sql.length() && isWordChar(sql.charAt(i))) {
+                i++;
+            }
+        }
+        if (i >= sql.length() || sql.charAt(i) != '$') {
+            return -1;
+        }
+        String tag = sql.substring(start, i + 1);
+        int close = sql.indexOf(tag, i + 1);
+        return close < 0 ? sql.length() : close + tag.length();
+    }
+
+    private static int numberEnd(String sql, int start) {
+        int i = digitsEnd(sql, start);
+        if (i + 1 < sql.length() && sql.charAt(i) == '.' && Character.isDigit(sql.charAt(i + 1))) {
+            i = digitsEnd(sql, i + 1);
+        }
+        return i;
+    }
+
+    private static int digitsEnd(String sql, int start) {
+        int i = start;
+        while (i < sql.length() && Character.isDigit(sql.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Rewrites a just-closed {@code in (?, ?, ...)} at the end of {@code out} to {@code in (?)}.
+     */
+    private static void collapseInList(StringBuilder out) {
+        int i = out.length() - 2;
+        while (true) {
+            i = skipSpaces(out, i);
+            if (i < 0 || out.charAt(i) != '?') {
+                return;
+            }
+            i = skipSpaces(out, i - 1);
+            if (i < 0) {
+                return;
+            }
+            if (out.charAt(i) == '(') {
+                break;
+            }
+            if (out.charAt(i) != ',') {
+                return;
+            }
+            i--;
+        }
+        int open = i;
+        i = skipSpaces(out, i - 1);
+        if (i < 1 || out.charAt(i) != 'n' || out.charAt(i - 1) != 'i' || (i >= 2 && isWordChar(out.charAt(i - 2)))) {
+            return;
+        }
+        out.setLength(i + 1);
+        out.append(" (?)");
+    }
+
+    private static int skipSpaces(StringBuilder out, int from) {
+        int i = from;
+        while (i >= 0 && out.charAt(i) == ' ') {
+            i--;
+        }
+        return i;
+    }
+
+    private static boolean followsWord(String sql, int index) {
+        if (index == 0) {
+            return false;
+        }
+        char previous = sql.charAt(index - 1);
+        return isWordChar(previous) || previous == '.' || previous == '$';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
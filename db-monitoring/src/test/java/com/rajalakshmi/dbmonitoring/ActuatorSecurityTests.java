@@ -0,0 +1,63 @@
+package com.rajalakshmi.dbmonitoring;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "management.endpoints.web.exposure.include=health,prometheus,slowqueries",
+        "db.monitoring.actuator-password=scrape"
+})
+@AutoConfigureMockMvc
+class ActuatorSecurityTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void slowQueryLogNeedsTheMonitoringUser() throws Exception {
+        mockMvc.perform(get("/actuator/slowqueries")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/slowqueries").with(httpBasic("monitoring", "wrong")))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/actuator/slowqueries").with(httpBasic("monitoring", "scrape")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.thresholdMillis").value(200));
+    }
+
+    @Test
+    void slowQueryLogCannotBeCleared() throws Exception {
+        mockMvc.perform(delete("/actuator/slowqueries").with(httpBasic("monitoring", "scrape")))
+                .andExpect(status().isMethodNotAllowed());
+    }
+
+    @Test
+    void healthStaysOpen() throws Exception {
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    // Stands in for a service: no database, and a chain of its own that permits everything
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = DataSourceAutoConfiguration.class)
+    static class ServiceApplication {
+
+        @Bean
+        SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+            return http.authorizeHttpRequests(auth -> auth.anyRequest().permitAll()).build();
+        }
+    }
+}
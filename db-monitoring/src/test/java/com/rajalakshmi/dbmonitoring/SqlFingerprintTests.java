@@ -0,0 +1,57 @@
+package com.rajalakshmi.dbmonitoring;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlFingerprintTests {
+
+    @Test
+    void literalsNeverSurviveFingerprinting() {
+        String fingerprint = SqlFingerprint.of(
+                "SELECT * FROM users WHERE username = 'alice' AND password = 'it''s secret' AND id = 42");
+
+        assertThat(fingerprint).isEqualTo("select * from users where username = ? and password = ? and id = ?");
+    }
+
+    @Test
+    void statementsDifferingOnlyInValuesShareAFingerprint() {
+        String few = SqlFingerprint.of("select f1_0.id from feedback f1_0 where f1_0.user_id in (?, ?)");
+        String many = SqlFingerprint.of("select f1_0.id\n  from feedback f1_0 where f1_0.user_id IN (1, 2, 3, 4)");
+
+        assertThat(few).isEqualTo(many).isEqualTo("select f1_0.id from feedback f1_0 where f1_0.user_id in (?)");
+    }
+
+    @Test
+    void commentsAreDropped() {
+        assertThat(SqlFingerprint.of("/* load user 'bob' */ select 1 -- trailing note"))
+                .isEqualTo("select ?");
+    }
+
+    @Test
+    void commentMarkersInsideLiteralsDoNotUnmaskWhatFollows() {
+        assertThat(SqlFingerprint.of("select * from feedback where note = 'a--b' and pw = 'secret'"))
+                .isEqualTo("select * from feedback where note = ? and pw = ?");
+        assertThat(SqlFingerprint.of("select * from feedback where note = 'a/*b' and pw = 'secret' /* */"))
+                .isEqualTo("select * from feedback where note = ? and pw = ?");
+        assertThat(SqlFingerprint.of("select 1 -- it's\nfrom users where pw = 'secret'"))
+                .isEqualTo("select ? from users where pw = ?");
+    }
+
+    @Test
+    void escapeAndDollarQuotedLiteralsAreMasked() {
+        assertThat(SqlFingerprint.of("update users set pw = E'it\\'s -- secret' where id = $1"))
+                .isEqualTo("update users set pw = ? where id = $1");
+        assertThat(SqlFingerprint.of("select $tag$ it's 'secret' $$ $tag$, $$x$$ from users"))
+                .isEqualTo("select ?, ? from users");
+        assertThat(SqlFingerprint.of("select * from users where pw = 'unterminated secret"))
+                .isEqualTo("select * from users where pw = ?");
+    }
+
+    @Test
+    void typeComesFromTheLeadingKeyword() {
+        assertThat(SqlFingerprint.type("  insert into feedback values (?)")).isEqualTo("insert");
+        assertThat(SqlFingerprint.type("with recent as (select 1) select * from recent")).isEqualTo("select");
+        assertThat(SqlFingerprint.type("alter table feedback add column x int")).isEqualTo("other");
+    }
+}
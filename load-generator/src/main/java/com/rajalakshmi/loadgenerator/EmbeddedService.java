@@ -0,0 +1,169 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+
+/**
+ * A Spring Boot service started in this JVM from its executable jar. Each service gets a class loader of
+ * its own, parented to the platform loader, so the servlet services, the reactive gateway and this tool
+ * never see each other's dependencies.
+ */
+final class EmbeddedService implements AutoCloseable {
+
+    private final String name;
+    private final URLClassLoader classLoader;
+    private final AutoCloseable context;
+
+    private EmbeddedService(String name, URLClassLoader classLoader, AutoCloseable context) {
+        this.name = name;
+        this.classLoader = classLoader;
+        this.context = context;
+    }
+
+    /**
+     * Unpacks {@code jar} under {@code workDir} (reused while the jar is unchanged) and runs its
+     * Start-Class with {@code args}, returning once the application context is refreshed.
+     */
+    static EmbeddedService start(String name, Path jar, Path workDir, List<URL> extraClassPath, List<String> args)
+            throws IOException, ReflectiveOperationException {
+        Path exploded = explode(jar, workDir.resolve(name));
+        List<URL> urls = new ArrayList<>();
+        urls.add(exploded.resolve("BOOT-INF/classes").toUri().toURL());
+        urls.addAll(libraries(exploded));
+        urls.addAll(extraClassPath);
+        String startClass;
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            startClass = jarFile.getManifest().getMainAttributes().getValue("Start-Class");
+        }
+
+        URLClassLoader classLoader = new URLClassLoader(name, urls.toArray(URL[]::new),
+                ClassLoader.getPlatformClassLoader());
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        // Threads the application creates (web server, schedulers) inherit this
+        thread.setContextClassLoader(classLoader);
+        try {
+            disableTomcatUrlHandlers(classLoader);
+            Class<?> application = classLoader.loadClass(startClass);
+            Method run = classLoader.loadClass("org.springframework.boot.SpringApplication")
+                    .getMethod("run", Class.class, String[].class);
+            Object context = run.invoke(null, application, args.toArray(String[]::new));
+            return new EmbeddedService(name, classLoader, (AutoCloseable) context);
+        } catch (InvocationTargetException e) {
+            classLoader.close();
+            throw new IllegalStateException(name + " failed to start", e.getCause());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            classLoader.close();
+            throw e;
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            context.close();
+        } finally {
+            classLoader.close();
+        }
+    }
+
+    // Each servlet service has its own copy of Tomcat, and each copy would install a JVM-wide URL stream
+    // handler factory; the second attempt fails. Embedded Tomcat does not need the war: handler it adds.
+    private static void disableTomcatUrlHandlers(ClassLoader classLoader) throws ReflectiveOperationException {
+        try {
+            classLoader.loadClass("org.apache.catalina.webresources.TomcatURLStreamHandlerFactory")
+                    .getMethod("disable").invoke(null);
+        } catch (ClassNotFoundException e) {
+            // Not a servlet service
+        }
+    }
+
+    private static Path explode(Path jar, Path target) throws IOException {
+        Path stamp = target.resolve(".source");
+        String source = jar.toAbsolutePath() + " " + Files.getLastModifiedTime(jar).toMillis() + " " + Files.size(jar);
+        if (Files.isRegularFile(stamp) && Files.readString(stamp).equals(source)) {
+            return target;
+        }
+        deleteRecursively(target);
+        Files.createDirectories(target);
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                Path destination = target.resolve(entry.getName()).normalize();
+                if (!destination.startsWith(target)) {
+                    throw new IOException("Entry outside of the target directory: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(destination);
+                    continue;
+                }
+                Files.createDirectories(destination.getParent());
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    Files.copy(in, destination, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        Files.writeString(stamp, source);
+        return target;
+    }
+
+    // In the order recorded in classpath.idx, which is the order the jar would use
+    private static List<URL> libraries(Path exploded) throws IOException {
+        Path index = exploded.resolve("BOOT-INF/classpath.idx");
+        List<Path> jars = new ArrayList<>();
+        if (Files.isRegularFile(index)) {
+            for (String line : Files.readAllLines(index)) {
+                String entry = line.trim();
+                if (entry.startsWith("- \"") && entry.endsWith("\"")) {
+                    jars.add(exploded.resolve(entry.substring(3, entry.length() - 1)));
+                }
+            }
+        } else {
+            try (Stream<Path> files = Files.list(exploded.resolve("BOOT-INF/lib"))) {
+                files.sorted().forEach(jars::add);
+            }
+        }
+        List<URL> urls = new ArrayList<>();
+        for (Path path : jars) {
+            urls.add(toUrl(path));
+        }
+        return urls;
+    }
+
+    static URL toUrl(Path path) throws MalformedURLException {
+        return path.toUri().toURL();
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Blocking HTTP calls against the gateway, each timed into {@link LatencyStats} under an endpoint name.
+ * Meant to be called from virtual threads, one call per thread at a time.
+ */
+final class GatewayClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient http;
+    private final URI base;
+    private final LatencyStats stats;
+
+    GatewayClient(URI base) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build(), base, LatencyStats.DISCARD);
+    }
+
+    private GatewayClient(HttpClient http, URI base, LatencyStats stats) {
+        this.http = http;
+        this.base = base;
+        this.stats = stats;
+    }
+
+    GatewayClient recordingTo(LatencyStats stats) {
+        return new GatewayClient(http, base, stats);
+    }
+
+    Response get(String endpoint, String path, String token) {
+        return send(endpoint, request(path, token).GET());
+    }
+
+    Response postJson(String endpoint, String path, String json, String token) {
+        return send(endpoint, request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)));
+    }
+
+    Response postFile(String endpoint, String path, String fileName, String contentType, byte[] content,
+                      String token) {
+        String boundary = UUID.randomUUID().toString();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(content.length + 256);
+        body.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + fileName + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(content);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return send(endpoint, request(path, token)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray())));
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(path)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private Response send(String endpoint, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            Response result = new Response(response.statusCode(), response.body());
+            stats.record(endpoint, System.nanoTime() - start, result.ok());
+            return result;
+        } catch (IOException e) {
+            stats.record(endpoint, System.nanoTime() - start, false);
+            return Response.FAILED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Response.FAILED;
+        }
+    }
+
+    record Response(int status, String body) {
+
+        static final Response FAILED = new Response(-1, "");
+
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        /**
+         * Value of a top-level string or number field of a JSON body, or null; enough for ids and tokens.
+         */
+        String field(String name) {
+            Matcher matcher = Pattern.compile("\"" + Pattern.quote(name) + "\"\\s*:\\s*(?:\"([^\"]*)\"|(-?\\d+))")
+                    .matcher(body);
+            if (!matcher.find()) {
+                return null;
+            }
+            return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * user-service, feedback-service and api-gateway running in this JVM, each service on its own in-memory
+ * H2 database in PostgreSQL mode. Eureka is replaced by the gateway's static instance list, so nothing
+ * outside this process is needed.
+ */
+final class InProcessStack implements AutoCloseable {
+
+    private final List<EmbeddedService> services;
+    private final URI gateway;
+
+    private InProcessStack(List<EmbeddedService> services, URI gateway) {
+        this.services = services;
+        this.gateway = gateway;
+    }
+
+    static InProcessStack start(Path servicesDir) throws Exception {
+        Path workDir = servicesDir.toAbsolutePath().normalize().resolveSibling("load-generator")
+                .resolve("target").resolve("embedded");
+        List<URL> database = List.of(codeSource(org.h2.Driver.class));
+        int userPort = freePort();
+        int feedbackPort = freePort();
+        int gatewayPort = freePort();
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        List<String> userArgs = serviceArgs(userPort, "users");
+        userArgs.add("--jwt.secret=" + Base64.getEncoder().encodeToString(secret));
+        List<String> feedbackArgs = serviceArgs(feedbackPort, "feedback");
+        List<String> gatewayArgs = commonArgs(gatewayPort);
+        gatewayArgs.add("--gateway.loadbalancer.instances.user-service=http://127.0.0.1:" + userPort);
+        gatewayArgs.add("--gateway.loadbalancer.instances.feedback-service=http://127.0.0.1:" + feedbackPort);
+
+        List<EmbeddedService> started = new ArrayList<>();
+        ExecutorService starter = Executors.newFixedThreadPool(2);
+        try {
+            Future<EmbeddedService> users = starter.submit(() -> EmbeddedService.start("user-service",
+                    jar(servicesDir, "user-service"), workDir, database, userArgs));
+            Future<EmbeddedService> feedback = starter.submit(() -> EmbeddedService.start("feedback-service",
+                    jar(servicesDir, "feedback-service"), workDir, database, feedbackArgs));
+            Exception failure = null;
+            for (Future<EmbeddedService> service : List.of(users, feedback)) {
+                try {
+                    started.add(get(service));
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            started.add(EmbeddedService.start("api-gateway", jar(servicesDir, "api-gateway"), workDir, List.of(),
+                    gatewayArgs));
+        } catch (Exception e) {
+            closeAll(started);
+            throw e;
+        } finally {
+            starter.shutdown();
+        }
+        return new InProcessStack(started, URI.create("http://127.0.0.1:" + gatewayPort));
+    }
+
+    URI gateway() {
+        return gateway;
+    }
+
+    @Override
+    public void close() {
+        closeAll(services);
+    }
+
+    private static List<String> commonArgs(int port) {
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=" + port);
+        args.add("--spring.main.banner-mode=off");
+        args.add("--logging.level.root=WARN");
+        args.add("--eureka.client.enabled=false");
+        args.add("--eureka.client.service-url.defaultZone=http://127.0.0.1:8761/eureka/");
+        return args;
+    }
+
+    private static List<String> serviceArgs(int port, String database) {
+        List<String> args = commonArgs(port);
+        args.add("--spring.datasource.url=jdbc:h2:mem:" + database
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        args.add("--spring.datasource.username=sa");
+        args.add("--spring.datasource.password=");
+        args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+        args.add("--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        return args;
+    }
+
+    private static Path jar(Path servicesDir, String name) throws IOException {
+        Path target = servicesDir.resolve(name).resolve("target");
+        if (Files.isDirectory(target)) {
+            try (Stream<Path> files = Files.list(target)) {
+                List<Path> jars = files
+                        .filter(path -> path.getFileName().toString().startsWith(name + "-"))
+                        .filter(path -> path.getFileName().toString().endsWith(".jar"))
+                        .filter(path -> !path.getFileName().toString().endsWith("-plain.jar"))
+                        .toList();
+                if (jars.size() == 1) {
+                    return jars.get(0);
+                }
+            }
+        }
+        throw new IllegalStateException("No single executable jar in " + target
+                + "; build the services first with mvn package -DskipTests");
+    }
+
+    private static EmbeddedService get(Future<EmbeddedService> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static URL codeSource(Class<?> type) throws IOException {
+        try {
+            return EmbeddedService.toUrl(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()));
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void closeAll(List<EmbeddedService> services) {
+        // Gateway first, then the services behind it
+        for (int i = services.size() - 1; i >= 0; i--) {
+            EmbeddedService service = services.get(i);
+            try {
+                service.close();
+            } catch (Exception e) {
+                System.err.println("Could not stop " + service.name() + ": " + e);
+            }
+        }
+    }
+}
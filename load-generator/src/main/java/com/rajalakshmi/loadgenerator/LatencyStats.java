@@ -0,0 +1,81 @@
+package com.rajalakshmi.loadgenerator;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and outcome counts keyed by endpoint or scenario name, in microseconds.
+ */
+final class LatencyStats {
+
+    // Arrivals during warmup are recorded here and never reported
+    static final LatencyStats DISCARD = new LatencyStats();
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    void record(String name, long nanos, boolean ok) {
+        if (this == DISCARD) {
+            return;
+        }
+        Entry entry = entries.computeIfAbsent(name, key -> new Entry());
+        entry.recorder.recordValue(Math.min(Math.max(1, nanos / 1000), HIGHEST_TRACKABLE_MICROS));
+        (ok ? entry.ok : entry.failed).increment();
+    }
+
+    void print(PrintStream out, String title, double seconds) {
+        out.printf("%n%-40s %8s %7s %9s %9s %9s %9s %9s %9s%n", title, "count", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Entry> named : new TreeMap<>(entries).entrySet()) {
+            Entry entry = named.getValue();
+            Histogram histogram = entry.histogram();
+            long count = entry.ok.sum() + entry.failed.sum();
+            out.printf("%-40s %8d %7d %9.1f", named.getKey(), count, entry.failed.sum(), count / seconds);
+            for (double percentile : PERCENTILES) {
+                out.printf(" %9.2f", histogram.getValueAtPercentile(percentile) / 1000.0);
+            }
+            out.printf(" %9.2f%n", histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    /**
+     * Writes one HdrHistogram percentile distribution per name, in milliseconds, for plotting.
+     */
+    void writeHistograms(Path dir, String prefix) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<String, Entry> named : entries.entrySet()) {
+            String fileName = prefix + "-" + named.getKey().replaceAll("[^A-Za-z0-9-]+", "_") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(fileName)))) {
+                named.getValue().histogram().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Recorder recorder = new Recorder(1, HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder ok = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        // Guarded by this
+        private final Histogram accumulated = new Histogram(1, HIGHEST_TRACKABLE_MICROS, 3);
+
+        synchronized Histogram histogram() {
+            accumulated.add(recorder.getIntervalHistogram());
+            return accumulated.copy();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end load test of the stack: starts the services in-process (or targets a running gateway),
+ * seeds users, feedback and an image, drives an open-model workload mix through the gateway and prints
+ * latency percentiles and throughput per endpoint and per scenario.
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.print(Options.USAGE);
+            return;
+        }
+        Options options = Options.parse(args);
+        WorkloadMix mix = options.mix();
+
+        InProcessStack stack = null;
+        URI target = options.target();
+        if (target == null) {
+            System.out.println("Starting user-service, feedback-service and api-gateway in-process...");
+            long start = System.nanoTime();
+            stack = InProcessStack.start(options.servicesDir());
+            target = stack.gateway();
+            System.out.printf("Stack up in %d ms, gateway at %s%n",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), target);
+        }
+
+        ExecutorService executor = newExecutor();
+        Workloads workloads = new Workloads(executor, options.imageBytes());
+        try {
+            GatewayClient client = new GatewayClient(target);
+            workloads.seed(client, options.users());
+
+            System.out.printf("Mix %s at %.1f arrivals/s for %ds after %ds warmup%n", mix, options.rate(),
+                    options.duration().toSeconds(), options.warmup().toSeconds());
+            LatencyStats endpoints = new LatencyStats();
+            LatencyStats scenarios = new LatencyStats();
+            OpenModelRunner.Result result = new OpenModelRunner(executor, workloads, client).run(mix,
+                    options.rate(), options.warmup(), options.duration(), options.maxInFlight(), options.seed(),
+                    endpoints, scenarios);
+
+            System.out.printf("%nArrivals %d, dropped %d, peak in flight %d, measured over %.1f s%s%n",
+                    result.arrivals(), result.dropped(), result.peakInFlight(), result.seconds(),
+                    result.drained() ? "" : " (some arrivals were still running at the end)");
+            scenarios.print(System.out, "Scenario (from scheduled arrival)", result.seconds());
+            endpoints.print(System.out, "Endpoint", result.seconds());
+            Path histograms = options.histogramDir();
+            if (histograms != null) {
+                scenarios.writeHistograms(histograms, "scenario");
+                endpoints.writeHistograms(histograms, "endpoint");
+            }
+        } finally {
+            executor.shutdownNow();
+            if (stack != null) {
+                stack.close();
+                deleteUploads(workloads);
+            }
+        }
+    }
+
+    /**
+     * Virtual threads when running on Java 21 or later, otherwise an unbounded pool of platform threads.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("Running arrivals on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Virtual threads need Java 21; running arrivals on platform threads");
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threads = runnable -> {
+                Thread thread = new Thread(runnable, "arrival-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            return Executors.newCachedThreadPool(threads);
+        }
+    }
+
+    // feedback-service stores uploads relative to the working directory, which it shares with this process
+    private static void deleteUploads(Workloads workloads) {
+        Path uploads = Path.of("uploads");
+        for (String fileName : workloads.uploadedFiles()) {
+            try {
+                Files.deleteIfExists(uploads.resolve(fileName));
+            } catch (IOException e) {
+                System.err.println("Could not delete " + uploads.resolve(fileName) + ": " + e);
+            }
+        }
+    }
+}
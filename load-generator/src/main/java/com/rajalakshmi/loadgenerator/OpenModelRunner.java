@@ -0,0 +1,104 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load: arrivals follow a Poisson process at a fixed rate whether or not earlier ones have
+ * finished, so a slow system sees queues build up instead of the generator quietly backing off.
+ * Scenario latency is measured from each arrival's scheduled time, which keeps scheduler lag and
+ * executor queueing in the numbers rather than hiding them (coordinated omission).
+ */
+final class OpenModelRunner {
+
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(60);
+
+    private final ExecutorService executor;
+    private final Workloads workloads;
+    private final GatewayClient client;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    OpenModelRunner(ExecutorService executor, Workloads workloads, GatewayClient client) {
+        this.executor = executor;
+        this.workloads = workloads;
+        this.client = client;
+    }
+
+    Result run(WorkloadMix mix, double ratePerSecond, Duration warmup, Duration duration, int maxInFlight,
+               long seed, LatencyStats endpoints, LatencyStats scenarios) throws InterruptedException {
+        Random random = new Random(seed);
+        GatewayClient warmupClient = client.recordingTo(LatencyStats.DISCARD);
+        GatewayClient measuredClient = client.recordingTo(endpoints);
+        long warmupNanos = warmup.toNanos();
+        long endNanos = warmupNanos + duration.toNanos();
+        double meanGapNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+
+        long origin = System.nanoTime();
+        long arrivals = 0;
+        double offset = 0;
+        while (true) {
+            offset += -Math.log(1 - random.nextDouble()) * meanGapNanos;
+            if (offset >= endNanos) {
+                break;
+            }
+            long scheduled = origin + (long) offset;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Scenario scenario = mix.pick(random.nextDouble());
+            boolean measured = offset >= warmupNanos;
+            if (measured) {
+                arrivals++;
+            }
+            if (inFlight.get() >= maxInFlight) {
+                if (measured) {
+                    dropped.incrementAndGet();
+                }
+                continue;
+            }
+            start(scenario, scheduled, measured ? measuredClient : warmupClient,
+                    measured ? scenarios : LatencyStats.DISCARD);
+        }
+        long measuredNanos = System.nanoTime() - origin - warmupNanos;
+        // The executor also runs dashboard fan-out calls, so wait for arrivals to finish instead of shutting it down
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() - drainDeadline < 0) {
+            Thread.sleep(10);
+        }
+        boolean drained = inFlight.get() == 0;
+        return new Result(arrivals, dropped.get(), peakInFlight.get(), measuredNanos / 1e9, drained);
+    }
+
+    private void start(Scenario scenario, long scheduledNanos, GatewayClient client, LatencyStats scenarios) {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            executor.execute(() -> {
+                boolean ok = false;
+                try {
+                    ok = workloads.run(scenario, client);
+                } catch (RuntimeException e) {
+                    // Counted as a failed arrival; the individual request has already been recorded
+                } finally {
+                    scenarios.record(scenario.id(), System.nanoTime() - scheduledNanos, ok);
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+    }
+
+    record Result(long arrivals, long dropped, int peakInFlight, double seconds, boolean drained) {
+    }
+}
@@ -0,0 +1,99 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options, all given as {@code --name=value}.
+ */
+final class Options {
+
+    static final String USAGE = """
+            Usage: LoadGenerator [--name=value ...]
+              --mix=mixed             preset (%s) or weights such as register=1,login=4
+              --rate=50               arrivals per second; arrivals are Poisson and never wait for responses
+              --duration=60           measured seconds
+              --warmup=10             seconds of load before measuring starts
+              --users=50              users registered (each with a few feedback entries) before the run
+              --image-kb=64           size of uploaded images
+              --max-in-flight=5000    arrivals beyond this many outstanding scenarios are dropped and counted
+              --seed=42               random seed for arrivals and the mix
+              --target=URL            drive an already running gateway instead of starting the stack in-process
+              --services-dir=services where the service jars are built (services/<name>/target/<name>-*.jar)
+              --histograms=DIR        also write HdrHistogram percentile distributions (.hgrm) per endpoint
+            """.formatted(String.join(", ", WorkloadMix.PRESETS.keySet()));
+
+    private final Map<String, String> values;
+
+    private Options(Map<String, String> values) {
+        this.values = values;
+    }
+
+    static Options parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+        return new Options(values);
+    }
+
+    WorkloadMix mix() {
+        return WorkloadMix.parse(values.getOrDefault("mix", "mixed"));
+    }
+
+    double rate() {
+        return Double.parseDouble(values.getOrDefault("rate", "50"));
+    }
+
+    Duration duration() {
+        return Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60")));
+    }
+
+    Duration warmup() {
+        return Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "10")));
+    }
+
+    int users() {
+        return Integer.parseInt(values.getOrDefault("users", "50"));
+    }
+
+    int imageBytes() {
+        return Integer.parseInt(values.getOrDefault("image-kb", "64")) * 1024;
+    }
+
+    int maxInFlight() {
+        return Integer.parseInt(values.getOrDefault("max-in-flight", "5000"));
+    }
+
+    long seed() {
+        return Long.parseLong(values.getOrDefault("seed", "42"));
+    }
+
+    URI target() {
+        String target = values.get("target");
+        return target == null ? null : URI.create(target);
+    }
+
+    Path servicesDir() {
+        String configured = values.get("services-dir");
+        if (configured != null) {
+            return Path.of(configured);
+        }
+        // Run from the repository root or from load-generator/
+        Path services = Path.of("services");
+        return Files.isDirectory(services) ? services : Path.of("..", "services");
+    }
+
+    Path histogramDir() {
+        String dir = values.get("histograms");
+        return dir == null ? null : Path.of(dir);
+    }
+}
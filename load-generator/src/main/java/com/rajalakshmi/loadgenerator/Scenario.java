@@ -0,0 +1,37 @@
+package com.rajalakshmi.loadgenerator;
+
+/**
+ * What one arrival does. Each scenario is a short user journey of one or more requests.
+ */
+enum Scenario {
+
+    // Sign up a new user, then log in as them
+    REGISTER("register"),
+    // Log in as an existing user
+    LOGIN("login"),
+    // Submit a feedback entry
+    FEEDBACK_WRITE("feedback-write"),
+    // Load a user's dashboard: profile, their feedback, all feedback and an image, in parallel
+    DASHBOARD("dashboard"),
+    // Upload an image and submit feedback referencing it
+    IMAGE_UPLOAD("image-upload");
+
+    private final String id;
+
+    Scenario(String id) {
+        this.id = id;
+    }
+
+    String id() {
+        return id;
+    }
+
+    static Scenario fromId(String id) {
+        for (Scenario scenario : values()) {
+            if (scenario.id.equals(id)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario " + id);
+    }
+}
@@ -0,0 +1,81 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Relative weights of the scenarios an arrival is drawn from.
+ */
+final class WorkloadMix {
+
+    static final Map<String, String> PRESETS = new LinkedHashMap<>();
+
+    static {
+        PRESETS.put("mixed", "register=5,login=15,feedback-write=20,dashboard=50,image-upload=10");
+        PRESETS.put("auth-storm", "register=30,login=70");
+        PRESETS.put("write-burst", "feedback-write=100");
+        PRESETS.put("dashboard", "dashboard=100");
+        PRESETS.put("image-upload", "image-upload=100");
+    }
+
+    private final Map<Scenario, Double> weights;
+    private final Scenario[] scenarios;
+    private final double[] cumulative;
+
+    private WorkloadMix(Map<Scenario, Double> weights) {
+        this.weights = weights;
+        this.scenarios = weights.keySet().toArray(Scenario[]::new);
+        this.cumulative = new double[scenarios.length];
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        double sum = 0;
+        for (int i = 0; i < scenarios.length; i++) {
+            sum += weights.get(scenarios[i]) / total;
+            cumulative[i] = sum;
+        }
+    }
+
+    static WorkloadMix parse(String spec) {
+        String weightsSpec = PRESETS.getOrDefault(spec, spec);
+        Map<Scenario, Double> weights = new EnumMap<>(Scenario.class);
+        for (String part : weightsSpec.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected scenario=weight but got " + part);
+            }
+            double weight = Double.parseDouble(pair[1]);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + pair[0]);
+            }
+            if (weight > 0) {
+                weights.merge(Scenario.fromId(pair[0].trim()), weight, Double::sum);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix " + spec + " has no scenario with a positive weight");
+        }
+        return new WorkloadMix(weights);
+    }
+
+    /**
+     * Picks a scenario for a uniform random number in [0, 1).
+     */
+    Scenario pick(double random) {
+        for (int i = 0; i < cumulative.length - 1; i++) {
+            if (random < cumulative[i]) {
+                return scenarios[i];
+            }
+        }
+        return scenarios[scenarios.length - 1];
+    }
+
+    @Override
+    public String toString() {
+        return weights.entrySet().stream()
+                .map(entry -> entry.getKey().id() + "="
+                        + BigDecimal.valueOf(entry.getValue()).stripTrailingZeros().toPlainString())
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,165 @@
+package com.rajalakshmi.loadgenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * The requests behind each {@link Scenario}, and the users, feedback and images they work on.
+ */
+final class Workloads {
+
+    private static final String[] WORDS = {"food", "was", "cold", "great", "service", "slow", "clean", "mess",
+            "hall", "queue", "tasty", "portion", "staff", "friendly", "late", "menu", "variety", "price"};
+
+    private static final int FEEDBACK_PER_SEEDED_USER = 3;
+
+    // feedback.description is varchar(255)
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    // Written only while seeding, before any scenario runs
+    private final List<SeededUser> users = new ArrayList<>();
+    private final List<String> images = new ArrayList<>();
+
+    private final Queue<String> uploadedFiles = new ConcurrentLinkedQueue<>();
+
+    private final Executor fanOut;
+    private final byte[] image;
+
+    // Keeps usernames unique across runs against the same database
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+
+    Workloads(Executor fanOut, int imageBytes) {
+        this.fanOut = fanOut;
+        // The upload endpoint checks the signature; the rest only needs to be the right size
+        this.image = new byte[Math.max(imageBytes, PNG_SIGNATURE.length)];
+        ThreadLocalRandom.current().nextBytes(image);
+        System.arraycopy(PNG_SIGNATURE, 0, image, 0, PNG_SIGNATURE.length);
+    }
+
+    void seed(GatewayClient client, int userCount) {
+        for (int i = 0; i < userCount; i++) {
+            SeededUser user = registerAndLogin(client);
+            if (user == null) {
+                continue;
+            }
+            users.add(user);
+            for (int j = 0; j < FEEDBACK_PER_SEEDED_USER; j++) {
+                if (!writeFeedback(client, user, null)) {
+                    throw new IllegalStateException("Could not seed feedback through the gateway");
+                }
+            }
+        }
+        String uploaded = upload(client, users.isEmpty() ? null : users.get(0));
+        if (uploaded != null) {
+            images.add(uploaded);
+        }
+        if (users.isEmpty() || images.isEmpty()) {
+            throw new IllegalStateException("Could not seed users and images through the gateway");
+        }
+    }
+
+    /**
+     * Runs one arrival and reports whether every request in it succeeded.
+     */
+    boolean run(Scenario scenario, GatewayClient client) {
+        return switch (scenario) {
+            case REGISTER -> registerAndLogin(client) != null;
+            case LOGIN -> login(client, randomUser()) != null;
+            case FEEDBACK_WRITE -> writeFeedback(client, randomUser(), null);
+            case DASHBOARD -> dashboard(client, randomUser());
+            case IMAGE_UPLOAD -> {
+                SeededUser user = randomUser();
+                String fileName = upload(client, user);
+                yield fileName != null && writeFeedback(client, user, "/feedback/uploads/" + fileName);
+            }
+        };
+    }
+
+    /**
+     * Names of the files uploaded so far, for cleaning up after an in-process run.
+     */
+    Queue<String> uploadedFiles() {
+        return uploadedFiles;
+    }
+
+    private SeededUser registerAndLogin(GatewayClient client) {
+        String username = "lg-" + runId + "-" + sequence.incrementAndGet();
+        String password = "secret-" + username;
+        GatewayClient.Response registered = client.postJson("POST /users/register", "/users/register",
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\",\"email\":\"" + username
+                        + "@loadtest.local\",\"role\":\"STUDENT\"}", null);
+        String id = registered.ok() ? registered.field("id") : null;
+        if (id == null) {
+            return null;
+        }
+        SeededUser user = new SeededUser(Long.parseLong(id), username, password, null);
+        return login(client, user);
+    }
+
+    private SeededUser login(GatewayClient client, SeededUser user) {
+        GatewayClient.Response response = client.postJson("POST /users/login", "/users/login",
+                "{\"username\":\"" + user.username() + "\",\"password\":\"" + user.password() + "\"}", null);
+        String token = response.ok() ? response.field("token") : null;
+        return token == null ? null : new SeededUser(user.id(), user.username(), user.password(), token);
+    }
+
+    private boolean writeFeedback(GatewayClient client, SeededUser user, String imageUrl) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String json = "{\"userId\":" + user.id() + ",\"rating\":" + random.nextInt(1, 6)
+                + ",\"description\":\"" + description(random) + "\""
+                + (imageUrl != null ? ",\"imageUrl\":\"" + imageUrl + "\"" : "") + "}";
+        return client.postJson("POST /feedback", "/feedback", json, user.token()).ok();
+    }
+
+    private String upload(GatewayClient client, SeededUser user) {
+        GatewayClient.Response response = client.postFile("POST /feedback/uploads", "/feedback/uploads",
+                "photo.png", "image/png", image, user == null ? null : user.token());
+        String fileName = response.ok() ? response.field("fileName") : null;
+        if (fileName != null) {
+            uploadedFiles.add(fileName);
+        }
+        return fileName;
+    }
+
+    private boolean dashboard(GatewayClient client, SeededUser user) {
+        String image = images.get(ThreadLocalRandom.current().nextInt(images.size()));
+        List<CompletableFuture<GatewayClient.Response>> calls = List.of(
+                async(() -> client.get("GET /users/{id}", "/users/" + user.id(), user.token())),
+                async(() -> client.get("GET /feedback/user/{userId}", "/feedback/user/" + user.id(),
+                        user.token())),
+                async(() -> client.get("GET /feedback", "/feedback", user.token())),
+                async(() -> client.get("GET /feedback/uploads/{filename}", "/feedback/uploads/" + image,
+                        user.token())));
+        return calls.stream().allMatch(call -> call.join().ok());
+    }
+
+    private CompletableFuture<GatewayClient.Response> async(Supplier<GatewayClient.Response> call) {
+        return CompletableFuture.supplyAsync(call, fanOut);
+    }
+
+    private SeededUser randomUser() {
+        return users.get(ThreadLocalRandom.current().nextInt(users.size()));
+    }
+
+    private static String description(ThreadLocalRandom random) {
+        int length = random.nextInt(40, MAX_DESCRIPTION_LENGTH + 1);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return text.substring(0, length).trim();
+    }
+
+    private record SeededUser(long id, String username, String password, String token) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.rajalakshmi.loadgenerator;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+
+class WorkloadMixTests {
+
+    @Test
+    void scenariosAreDrawnInProportionToTheirWeights() {
+        WorkloadMix mix = WorkloadMix.parse("register=1,login=3");
+        Map<Scenario, Integer> counts = new EnumMap<>(Scenario.class);
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            counts.merge(mix.pick(random.nextDouble()), 1, Integer::sum);
+        }
+
+        assertThat(counts).containsOnlyKeys(Scenario.REGISTER, Scenario.LOGIN);
+        assertThat(counts.get(Scenario.LOGIN) / 100_000.0).isCloseTo(0.75, within(0.01));
+    }
+
+    @Test
+    void presetsExpandToTheirWeights() {
+        assertThat(WorkloadMix.parse("auth-storm")).hasToString("register=30,login=70");
+    }
+
+    @Test
+    void unknownScenariosAndEmptyMixesAreRejected() {
+        assertThatIllegalArgumentException().isThrownBy(() -> WorkloadMix.parse("browse=1"));
+        assertThatIllegalArgumentException().isThrownBy(() -> WorkloadMix.parse("login=0"));
+    }
+}
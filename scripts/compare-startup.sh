@@ -0,0 +1,75 @@
+#!/usr/bin/env bash
+# Compares cold start of one service across build modes: plain jar, fast-startup (AOT + CDS) and native.
+#
+#   ./mvnw package                                   -> target/<module>-*.jar
+#   ./mvnw -Pfast-startup package                    -> target/fast-startup/application.{jar,jsa}
+#   ./mvnw -Pnative native:compile                   -> target/<module>
+#
+# Usage: scripts/compare-startup.sh <module> [request-path] [runs]
+# The service's usual environment (SPRING_DATASOURCE_URL, JWT_SECRET, ...) must be exported beforehand.
+# EXTRA_CLASSPATH (e.g. an H2 jar) is appended to the JVM builds' class path, for timing the database
+# services against an in-memory database when no PostgreSQL is at hand.
+# Reports time until the port accepts connections and the latency of the first request after that.
+#
+# Measured on Temurin 17.0.9, one vCPU, mean of 5 runs. The gateway's upstreams pointed at closed local
+# ports; feedback-service and user-service ran on H2 (EXTRA_CLASSPATH) with Eureka disabled. No native
+# image was measured.
+#   eureka-server     /                 jar      16793 ms   867.1 ms    aot+cds   6118 ms   576.1 ms
+#   api-gateway       /gateway/metrics  jar      14904 ms   434.5 ms    aot+cds   5297 ms   357.9 ms
+#   feedback-service  /feedback         jar      27067 ms   970.5 ms    aot+cds  14153 ms   736.0 ms
+#   user-service      /actuator/health  jar      20337 ms   756.0 ms    aot+cds   8850 ms   393.8 ms
+set -euo pipefail
+
+MODULE=${1:?module name, e.g. feedback-service}
+REQUEST_PATH=${2:-/}
+RUNS=${3:-5}
+PORT=${PORT:-18080}
+DIR="$(cd "$(dirname "$0")/.." && pwd)/services/$MODULE"
+
+now_ms() { date +%s%3N; }
+
+measure() {
+  local label=$1; shift
+  local total_start=0 total_first=0
+  for ((run = 1; run <= RUNS; run++)); do
+    local start
+    start=$(now_ms)
+    SERVER_PORT=$PORT PORT=$PORT "$@" >/dev/null 2>&1 &
+    local pid=$!
+    until (exec 3<>"/dev/tcp/127.0.0.1/$PORT") 2>/dev/null; do
+      if ! kill -0 "$pid" 2>/dev/null; then
+        echo "$label: process exited before listening" >&2
+        return 1
+      fi
+      sleep 0.02
+    done
+    local ready
+    ready=$(now_ms)
+    local first
+    first=$(curl -s -o /dev/null -w '%{time_total}' "http://127.0.0.1:$PORT$REQUEST_PATH" || echo 0)
+    kill "$pid" && wait "$pid" 2>/dev/null || true
+    total_start=$((total_start + ready - start))
+    total_first=$(awk -v a="$total_first" -v b="$first" 'BEGIN { print a + b * 1000 }')
+  done
+  printf '%-14s startup %6d ms   first request %8.1f ms   (mean of %d runs)\n' \
+    "$label" $((total_start / RUNS)) "$(awk -v t="$total_first" -v n="$RUNS" 'BEGIN { print t / n }')" "$RUNS"
+}
+
+EXTRA_CLASSPATH=${EXTRA_CLASSPATH:-}
+
+JAR=$(ls "$DIR"/target/"$MODULE"-*.jar 2>/dev/null | head -n 1 || true)
+if [[ -n "$JAR" && -z "$EXTRA_CLASSPATH" ]]; then
+  measure "jar" java -jar "$JAR"
+elif [[ -n "$JAR" ]]; then
+  measure "jar" java -Dloader.path="$EXTRA_CLASSPATH" -cp "$JAR" org.springframework.boot.loader.launch.PropertiesLauncher
+fi
+if [[ -f "$DIR/target/fast-startup/application.jsa" ]]; then
+  # Entries appended after the training run's class path keep the CDS archive usable
+  MAIN=$(unzip -p "$DIR/target/fast-startup/application.jar" META-INF/MANIFEST.MF | sed -n 's/^Main-Class: *//p' | tr -d '\r')
+  (cd "$DIR/target/fast-startup" &&
+    measure "aot+cds" java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+      -cp "application.jar${EXTRA_CLASSPATH:+:$EXTRA_CLASSPATH}" "$MAIN")
+fi
+if [[ -x "$DIR/target/$MODULE" ]]; then
+  measure "native" "$DIR/target/$MODULE"
+fi
@@ -1,21 +1,45 @@
 package com.rajalakshmi.apigateway.config;
 
+import com.rajalakshmi.apigateway.loadbalancer.LoadBalancerProperties;
+import com.rajalakshmi.apigateway.metrics.MetricsProperties;
+import com.rajalakshmi.apigateway.resilience.ResilienceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.Buildable;
+import org.springframework.cloud.gateway.route.builder.PredicateSpec;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Set;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+
 @Configuration
+@EnableConfigurationProperties({LoadBalancerProperties.class, MetricsProperties.class, ResilienceProperties.class})
 public class GatewayConfig {
 
 
+    // Upstream statuses the circuit breaker counts as failures
+    private static final Set<String> FAILURE_STATUSES = Set.of("500", "502", "503", "504");
+
     @Bean
-    public RouteLocator routes(RouteLocatorBuilder builder) {
+    public RouteLocator routes(RouteLocatorBuilder builder, ResilienceProperties resilience) {
         return builder.routes()
-                .route("user-service", r -> r.path("/users/**")
-                        .uri("https://build1000build1000-user-service.azurewebsites.net"))
-                .route("feedback-service", r -> r.path("/feedback/**")
-                        .uri("https://build1000build1000-feedback-service.azurewebsites.net"))
+                .route("user-service", r -> resilient(r, "user-service", "/users/**", resilience))
+                .route("feedback-service", r -> resilient(r, "feedback-service", "/feedback/**", resilience))
                 .build();
     }
+
+    private static Buildable<Route> resilient(PredicateSpec r, String serviceId, String path,
+                                              ResilienceProperties resilience) {
+        ResilienceProperties.RoutePolicy policy = resilience.policy(serviceId);
+        return r.path(path)
+                .filters(f -> f.circuitBreaker(c -> c.setName(serviceId).setStatusCodes(FAILURE_STATUSES)))
+                .metadata(CONNECT_TIMEOUT_ATTR, (int) policy.getConnectTimeout().toMillis())
+                .metadata(RESPONSE_TIMEOUT_ATTR, policy.getResponseTimeout().toMillis())
+                .uri("lb://" + serviceId);
+    }
 }
@@ -0,0 +1,39 @@
+package com.rajalakshmi.apigateway.config;
+
+import com.rajalakshmi.apigateway.resilience.ResilienceProperties;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ResilienceConfig {
+
+    // Circuit breakers are named after the route they guard
+    @Bean
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> circuitBreakerCustomizer(ResilienceProperties resilience) {
+        return factory -> factory.configureDefault(id -> {
+            ResilienceProperties.RoutePolicy policy = resilience.policy(id);
+            ResilienceProperties.CircuitBreaker circuitBreaker = policy.getCircuitBreaker();
+            return new Resilience4JConfigBuilder(id)
+                    .circuitBreakerConfig(CircuitBreakerConfig.custom()
+                            .failureRateThreshold(circuitBreaker.getFailureRateThreshold())
+                            .slidingWindowSize(circuitBreaker.getSlidingWindowSize())
+                            .minimumNumberOfCalls(circuitBreaker.getMinimumNumberOfCalls())
+                            .waitDurationInOpenState(circuitBreaker.getWaitDurationInOpenState())
+                            .permittedNumberOfCallsInHalfOpenState(circuitBreaker.getPermittedCallsInHalfOpenState())
+                            .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                            .build())
+                    // The route's own timeouts fire first; this only bounds a hedged pair of calls
+                    .timeLimiterConfig(TimeLimiterConfig.custom()
+                            .timeoutDuration(policy.getConnectTimeout()
+                                    .plus(policy.getResponseTimeout())
+                                    .plus(policy.getHedge().getMaxDelay()))
+                            .build())
+                    .build();
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.rajalakshmi.apigateway.controller;
+
+import com.rajalakshmi.apigateway.loadbalancer.LatencyAwareLoadBalancer;
+import com.rajalakshmi.apigateway.loadbalancer.Upstream;
+import com.rajalakshmi.apigateway.loadbalancer.UpstreamPool;
+import com.rajalakshmi.apigateway.metrics.EventLoopMonitor;
+import com.rajalakshmi.apigateway.metrics.GatewayMetrics;
+import com.rajalakshmi.apigateway.metrics.LatencyHistogram;
+import com.rajalakshmi.apigateway.metrics.PrometheusFormatter;
+import com.rajalakshmi.apigateway.metrics.RouteMetrics;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/gateway/metrics")
+public class MetricsController {
+
+    @Autowired
+    private GatewayMetrics metrics;
+
+    @Autowired
+    private LatencyAwareLoadBalancer loadBalancer;
+
+    @Autowired
+    private EventLoopMonitor eventLoopMonitor;
+
+    @Autowired
+    private HttpClientProperties httpClientProperties;
+
+    @GetMapping
+    public ResponseEntity<String> prometheus() {
+        String body = new PrometheusFormatter()
+                .routes(metrics.getRoutes())
+                .upstreams(loadBalancer.getPools(), httpClientProperties.getPool().getMaxConnections())
+                .eventLoops(eventLoopMonitor)
+                .toString();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(PrometheusFormatter.CONTENT_TYPE))
+                .body(body);
+    }
+
+    // Latency percentiles in milliseconds over the last few minutes for one route; all statuses are merged
+    // unless one is given
+    @GetMapping("/percentiles")
+    public ResponseEntity<Map<String, Object>> routePercentiles(@RequestParam String route,
+                                                                @RequestParam(required = false) Integer status,
+                                                                @RequestParam(defaultValue = "total") String phase,
+                                                                @RequestParam(defaultValue = "50,90,99,99.9") List<Double> q) {
+        RouteMetrics routeMetrics = metrics.get(route);
+        RouteMetrics.Phase selectedPhase;
+        try {
+            selectedPhase = RouteMetrics.Phase.valueOf(phase.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (routeMetrics == null) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Histogram merged = new Histogram(2);
+        routeMetrics.forEach((statusMetrics, code) -> {
+            if (status == null || status == code) {
+                merged.add(statusMetrics.get(selectedPhase).snapshot().window());
+            }
+        });
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("route", route);
+        result.put("status", status);
+        result.put("phase", selectedPhase.name().toLowerCase(Locale.ROOT));
+        result.putAll(percentiles(merged, q));
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @GetMapping("/upstreams/percentiles")
+    public ResponseEntity<Map<String, Object>> upstreamPercentiles(@RequestParam String service,
+                                                                   @RequestParam String instance,
+                                                                   @RequestParam(defaultValue = "50,90,99,99.9") List<Double> q) {
+        for (UpstreamPool pool : loadBalancer.getPools()) {
+            for (Upstream upstream : pool.getUpstreams()) {
+                if (upstream.getServiceId().equals(service) && upstream.getUri().toString().equals(instance)) {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    result.put("service", service);
+                    result.put("instance", instance);
+                    result.putAll(percentiles(upstream.getLatency().snapshot().window(), q));
+                    return new ResponseEntity<>(result, HttpStatus.OK);
+                }
+            }
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    private static Map<String, Object> percentiles(Histogram histogram, List<Double> quantiles) {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Double quantile : quantiles) {
+            values.put(String.valueOf(quantile), histogram.getValueAtPercentile(quantile) / 1000.0);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", histogram.getTotalCount());
+        result.put("unit", "ms");
+        result.put("percentiles", values);
+        return result;
+    }
+}
@@ -0,0 +1,171 @@
+package com.rajalakshmi.apigateway.loadbalancer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Client-side load balancer for {@code lb://} routes. Instances come from the static list in
+ * {@link LoadBalancerProperties} or, when a service has none, from the discovery client (Eureka).
+ */
+@Component
+public class LatencyAwareLoadBalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    @Autowired
+    private LoadBalancerProperties properties;
+
+    @Autowired
+    private ObjectProvider<DiscoveryClient> discoveryClient;
+
+    private final Map<String, UpstreamPool> pools = new ConcurrentHashMap<>();
+
+    private final WebClient healthCheckClient = WebClient.create();
+
+    private Disposable refreshTask;
+    private Disposable healthCheckTask;
+
+    @PostConstruct
+    public void start() {
+        properties.getInstances().keySet().forEach(this::pool);
+        refreshTask = Flux.interval(properties.getRefreshInterval(), Schedulers.boundedElastic())
+                .subscribe(tick -> pools.values().forEach(this::refresh));
+        if (properties.getHealthCheck().isEnabled()) {
+            healthCheckTask = Flux.interval(properties.getHealthCheck().getInterval())
+                    .subscribe(tick -> pools.values().forEach(this::healthCheck));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+        if (healthCheckTask != null) {
+            healthCheckTask.dispose();
+        }
+    }
+
+    public Upstream choose(String serviceId) {
+        return choose(serviceId, null);
+    }
+
+    public Upstream choose(String serviceId, Upstream exclude) {
+        return pool(serviceId).choose(exclude);
+    }
+
+    public Collection<UpstreamPool> getPools() {
+        return pools.values();
+    }
+
+    /**
+     * Marks a request as dispatched to {@code upstream} and returns its start time for {@link #onComplete}.
+     */
+    public long onStart(Upstream upstream) {
+        upstream.requestStarted();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the outcome of a request started with {@link #onStart} and returns its latency.
+     */
+    public long onComplete(Upstream upstream, long startNanos, boolean failed) {
+        long now = System.nanoTime();
+        long latencyNanos = now - startNanos;
+        int failures = upstream.requestFinished(latencyNanos, failed, now,
+                properties.getDecayTime().toNanos(), properties.getFailurePenalty().toNanos());
+        checkOutlier(upstream, failures, now);
+        return latencyNanos;
+    }
+
+    /**
+     * Records a request started with {@link #onStart} that was given up on because a hedged copy answered
+     * first; returns how long it had been outstanding.
+     */
+    public long onAbandoned(Upstream upstream, long startNanos) {
+        long now = System.nanoTime();
+        long elapsedNanos = now - startNanos;
+        checkOutlier(upstream, upstream.requestAbandoned(elapsedNanos, now, properties.getDecayTime().toNanos()),
+                now);
+        return elapsedNanos;
+    }
+
+    public void onCancel(Upstream upstream) {
+        upstream.requestCancelled();
+    }
+
+    private void checkOutlier(Upstream upstream, int failures, long now) {
+        LoadBalancerProperties.Outlier outlier = properties.getOutlier();
+        if (failures >= outlier.getConsecutiveFailures()
+                && pool(upstream.getServiceId()).canEject(outlier.getMaxEjectionPercent())) {
+            upstream.eject(now, outlier.getBaseEjectionTime().toNanos());
+            log.warn("Ejected {} after {} consecutive failures", upstream, failures);
+        }
+    }
+
+    private UpstreamPool pool(String serviceId) {
+        return pools.computeIfAbsent(serviceId, id -> {
+            UpstreamPool pool = new UpstreamPool(id);
+            refresh(pool);
+            return pool;
+        });
+    }
+
+    private void refresh(UpstreamPool pool) {
+        try {
+            pool.update(resolve(pool.getServiceId()));
+        } catch (RuntimeException e) {
+            // Keep serving from the last known instances
+            log.warn("Could not refresh instances of {}: {}", pool.getServiceId(), e.getMessage());
+        }
+    }
+
+    private List<URI> resolve(String serviceId) {
+        List<URI> configured = properties.getInstances().get(serviceId);
+        if (configured != null && !configured.isEmpty()) {
+            return configured;
+        }
+        DiscoveryClient client = discoveryClient.getIfAvailable();
+        if (client == null) {
+            return List.of();
+        }
+        return client.getInstances(serviceId).stream()
+                .map(ServiceInstance::getUri)
+                .toList();
+    }
+
+    private void healthCheck(UpstreamPool pool) {
+        LoadBalancerProperties.HealthCheck healthCheck = properties.getHealthCheck();
+        for (Upstream upstream : pool.getUpstreams()) {
+            healthCheckClient.get()
+                    .uri(upstream.getUri().resolve(healthCheck.getPath()))
+                    .exchangeToMono(response -> Mono.just(!response.statusCode().is5xxServerError()))
+                    .timeout(healthCheck.getTimeout())
+                    .onErrorReturn(false)
+                    .subscribe(passed -> {
+                        if (upstream.healthCheckResult(passed, healthCheck.getHealthyThreshold(),
+                                healthCheck.getUnhealthyThreshold())) {
+                            log.info("{} is now {}", upstream, passed ? "healthy" : "unhealthy");
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.rajalakshmi.apigateway.loadbalancer;
+
+import com.rajalakshmi.apigateway.metrics.RequestTiming;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.support.NotFoundException;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_SCHEME_PREFIX_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.addOriginalRequestUrl;
+
+/**
+ * Resolves {@code lb://service-id} request URLs to an instance picked by {@link LatencyAwareLoadBalancer}
+ * and feeds the outcome back into its statistics.
+ */
+@Component
+public class LoadBalancerFilter implements GlobalFilter, Ordered {
+
+    // Ahead of Spring Cloud's ReactiveLoadBalancerClientFilter (10150), which then sees an http URL and steps aside
+    public static final int ORDER = 10100;
+
+    public static final String UPSTREAM_ATTR = LoadBalancerFilter.class.getName() + ".upstream";
+
+    // Start time returned by onStart for the chosen upstream
+    public static final String UPSTREAM_START_ATTR = LoadBalancerFilter.class.getName() + ".upstreamStart";
+
+    // Set by a later filter that reports the upstream's outcome to the load balancer itself
+    public static final String OUTCOME_REPORTED_ATTR = LoadBalancerFilter.class.getName() + ".outcomeReported";
+
+    @Autowired
+    private LatencyAwareLoadBalancer loadBalancer;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        String schemePrefix = exchange.getAttribute(GATEWAY_SCHEME_PREFIX_ATTR);
+        if (url == null || (!"lb".equals(url.getScheme()) && !"lb".equals(schemePrefix))) {
+            return chain.filter(exchange);
+        }
+        addOriginalRequestUrl(exchange, url);
+
+        String serviceId = url.getHost();
+        Upstream upstream = loadBalancer.choose(serviceId);
+        if (upstream == null) {
+            return Mono.error(NotFoundException.create(false, "Unable to find instance for " + serviceId));
+        }
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, upstream.reconstruct(url));
+        exchange.getAttributes().put(UPSTREAM_ATTR, upstream);
+
+        RequestTiming timing = exchange.getAttribute(RequestTiming.ATTR);
+        long start = loadBalancer.onStart(upstream);
+        exchange.getAttributes().put(UPSTREAM_START_ATTR, start);
+        return chain.filter(exchange)
+                .doOnSuccess(done -> completed(exchange, timing, upstream, start, isServerError(exchange)))
+                .doOnError(error -> completed(exchange, timing, upstream, start, true))
+                .doOnCancel(() -> {
+                    if (!isOutcomeReported(exchange)) {
+                        loadBalancer.onCancel(upstream);
+                    }
+                });
+    }
+
+    // The chain completes once the response headers are in; NettyWriteResponseFilter streams the body after.
+    // A filter that reports the outcome itself also records the upstream time.
+    private void completed(ServerWebExchange exchange, RequestTiming timing, Upstream upstream, long start,
+                           boolean failed) {
+        if (isOutcomeReported(exchange)) {
+            return;
+        }
+        long latencyNanos = loadBalancer.onComplete(upstream, start, failed);
+        if (timing != null) {
+            timing.upstreamFinished(latencyNanos);
+        }
+    }
+
+    private static boolean isOutcomeReported(ServerWebExchange exchange) {
+        return Boolean.TRUE.equals(exchange.getAttribute(OUTCOME_REPORTED_ATTR));
+    }
+
+    private static boolean isServerError(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && status.is5xxServerError();
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
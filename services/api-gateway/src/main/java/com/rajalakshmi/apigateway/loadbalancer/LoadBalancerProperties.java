@@ -0,0 +1,166 @@
+package com.rajalakshmi.apigateway.loadbalancer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "gateway.loadbalancer")
+public class LoadBalancerProperties {
+
+    // Static instances per service id. A service with no entry (or an empty list) is resolved through discovery.
+    private Map<String, List<URI>> instances = new HashMap<>();
+
+    private Duration refreshInterval = Duration.ofSeconds(30);
+
+    // Time constant of the latency EWMA; older samples lose weight over roughly this long
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    // Latency charged for a failed request, so a fast failure never makes an instance look cheap
+    private Duration failurePenalty = Duration.ofSeconds(1);
+
+    private final HealthCheck healthCheck = new HealthCheck();
+
+    private final Outlier outlier = new Outlier();
+
+    public Map<String, List<URI>> getInstances() {
+        return instances;
+    }
+
+    public void setInstances(Map<String, List<URI>> instances) {
+        this.instances = instances;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(Duration decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    public Duration getFailurePenalty() {
+        return failurePenalty;
+    }
+
+    public void setFailurePenalty(Duration failurePenalty) {
+        this.failurePenalty = failurePenalty;
+    }
+
+    public HealthCheck getHealthCheck() {
+        return healthCheck;
+    }
+
+    public Outlier getOutlier() {
+        return outlier;
+    }
+
+    public static class HealthCheck {
+
+        private boolean enabled = true;
+
+        // Any response below 500 counts as healthy, so the path does not have to exist on the backend
+        private String path = "/";
+
+        private Duration interval = Duration.ofSeconds(10);
+
+        private Duration timeout = Duration.ofSeconds(2);
+
+        private int healthyThreshold = 2;
+
+        private int unhealthyThreshold = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        public void setTimeout(Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        public int getHealthyThreshold() {
+            return healthyThreshold;
+        }
+
+        public void setHealthyThreshold(int healthyThreshold) {
+            this.healthyThreshold = healthyThreshold;
+        }
+
+        public int getUnhealthyThreshold() {
+            return unhealthyThreshold;
+        }
+
+        public void setUnhealthyThreshold(int unhealthyThreshold) {
+            this.unhealthyThreshold = unhealthyThreshold;
+        }
+    }
+
+    public static class Outlier {
+
+        private int consecutiveFailures = 5;
+
+        // Multiplied by the number of times the same instance has been ejected
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+
+        private int maxEjectionPercent = 50;
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public void setConsecutiveFailures(int consecutiveFailures) {
+            this.consecutiveFailures = consecutiveFailures;
+        }
+
+        public Duration getBaseEjectionTime() {
+            return baseEjectionTime;
+        }
+
+        public void setBaseEjectionTime(Duration baseEjectionTime) {
+            this.baseEjectionTime = baseEjectionTime;
+        }
+
+        public int getMaxEjectionPercent() {
+            return maxEjectionPercent;
+        }
+
+        public void setMaxEjectionPercent(int maxEjectionPercent) {
+            this.maxEjectionPercent = maxEjectionPercent;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.rajalakshmi.apigateway.loadbalancer;
+
+import com.rajalakshmi.apigateway.metrics.LatencyHistogram;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One backend instance of a service together with the load statistics the balancer picks on.
+ */
+public class Upstream {
+
+    // Cost of an instance that has requests in flight but has never answered one
+    private static final double UNKNOWN_LATENCY_PENALTY = 1.0e12;
+
+    private final String serviceId;
+    private final URI uri;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private double ewmaNanos;
+    private long lastObservedNanos;
+
+    private volatile boolean healthy = true;
+    private int healthCheckStreak;
+
+    private volatile long ejectedUntilNanos;
+    private int ejectionCount;
+
+    public Upstream(String serviceId, URI uri) {
+        this.serviceId = serviceId;
+        this.uri = uri;
+        this.ejectedUntilNanos = System.nanoTime();
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public URI getUri() {
+        return uri;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    public boolean isEjected(long nowNanos) {
+        return nowNanos - ejectedUntilNanos < 0;
+    }
+
+    public boolean isAvailable(long nowNanos) {
+        return healthy && !isEjected(nowNanos);
+    }
+
+    public synchronized double getLatencyEwmaNanos() {
+        return ewmaNanos;
+    }
+
+    /**
+     * Peak-EWMA latency weighted by outstanding requests; lower is better.
+     */
+    public double cost() {
+        double ewma = getLatencyEwmaNanos();
+        int active = inFlight.get();
+        if (ewma == 0) {
+            return active == 0 ? 0 : UNKNOWN_LATENCY_PENALTY + active;
+        }
+        return ewma * (active + 1);
+    }
+
+    /**
+     * Swaps the scheme, host and port of a gateway request URL for this instance's.
+     */
+    public URI reconstruct(URI original) {
+        return UriComponentsBuilder.fromUri(original)
+                .scheme(uri.getScheme())
+                .host(uri.getHost())
+                .port(uri.getPort())
+                .build(true)
+                .toUri();
+    }
+
+    void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void requestCancelled() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records a finished request and returns the current run of consecutive failures.
+     */
+    int requestFinished(long latencyNanos, boolean failed, long nowNanos, long decayNanos,
+                        long failurePenaltyNanos) {
+        inFlight.decrementAndGet();
+        latency.recordNanos(latencyNanos);
+        observeLatency(failed ? Math.max(latencyNanos, failurePenaltyNanos) : latencyNanos, failed, nowNanos,
+                decayNanos);
+        if (failed) {
+            return consecutiveFailures.incrementAndGet();
+        }
+        consecutiveFailures.set(0);
+        return 0;
+    }
+
+    /**
+     * Records a request that was abandoned unanswered after {@code elapsedNanos} because a hedged copy won.
+     * Its latency is at least that long, and the stall counts towards outlier detection like a failure.
+     */
+    int requestAbandoned(long elapsedNanos, long nowNanos, long decayNanos) {
+        inFlight.decrementAndGet();
+        latency.recordNanos(elapsedNanos);
+        observeLatency(elapsedNanos, false, nowNanos, decayNanos);
+        return consecutiveFailures.incrementAndGet();
+    }
+
+    private synchronized void observeLatency(long latencyNanos, boolean failed, long nowNanos, long decayNanos) {
+        if (failed && latencyNanos <= ewmaNanos) {
+            // Failures are charged at least the penalty and may only raise the estimate, never lower it
+            lastObservedNanos = nowNanos;
+            return;
+        }
+        if (latencyNanos > ewmaNanos) {
+            // Peak sensitivity: a slow response is believed immediately, recovery is gradual
+            ewmaNanos = latencyNanos;
+        } else {
+            double weight = Math.exp(-Math.max(0, nowNanos - lastObservedNanos) / (double) decayNanos);
+            ewmaNanos = ewmaNanos * weight + latencyNanos * (1 - weight);
+        }
+        lastObservedNanos = nowNanos;
+    }
+
+    synchronized void eject(long nowNanos, long baseEjectionNanos) {
+        ejectionCount++;
+        ejectedUntilNanos = nowNanos + baseEjectionNanos * ejectionCount;
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * Applies an active health check result and reports whether the health state flipped.
+     */
+    synchronized boolean healthCheckResult(boolean passed, int healthyThreshold, int unhealthyThreshold) {
+        if (passed == healthy) {
+            healthCheckStreak = 0;
+            if (passed && ejectionCount > 0 && !isEjected(System.nanoTime())) {
+                // Healthy again after serving out its ejection, so the next one starts from the base time
+                ejectionCount = 0;
+            }
+            return false;
+        }
+        healthCheckStreak++;
+        if (healthCheckStreak < (passed ? healthyThreshold : unhealthyThreshold)) {
+            return false;
+        }
+        healthy = passed;
+        healthCheckStreak = 0;
+        if (passed) {
+            // Forget the latency seen while the instance was failing
+            ewmaNanos = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return serviceId + "@" + uri;
+    }
+}
@@ -0,0 +1,100 @@
+package com.rajalakshmi.apigateway.loadbalancer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The current instances of one service. Picks with power-of-two-choices over {@link Upstream#cost()}.
+ */
+public class UpstreamPool {
+
+    private final String serviceId;
+
+    private volatile List<Upstream> upstreams = List.of();
+
+    public UpstreamPool(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public List<Upstream> getUpstreams() {
+        return upstreams;
+    }
+
+    /**
+     * Replaces the instance list, keeping the statistics of instances that are still present.
+     */
+    public synchronized void update(List<URI> uris) {
+        List<Upstream> current = upstreams;
+        List<Upstream> next = new ArrayList<>(uris.size());
+        for (URI uri : uris) {
+            Upstream existing = null;
+            for (Upstream upstream : current) {
+                if (upstream.getUri().equals(uri)) {
+                    existing = upstream;
+                    break;
+                }
+            }
+            next.add(existing != null ? existing : new Upstream(serviceId, uri));
+        }
+        upstreams = List.copyOf(next);
+    }
+
+    /**
+     * Picks an instance other than {@code exclude}, or null when there is none. When every
+     * instance is unhealthy or ejected the pool panics and picks among all of them rather than failing.
+     */
+    public Upstream choose(Upstream exclude) {
+        List<Upstream> all = upstreams;
+        long now = System.nanoTime();
+        List<Upstream> candidates = new ArrayList<>(all.size());
+        for (Upstream upstream : all) {
+            if (upstream != exclude && upstream.isAvailable(now)) {
+                candidates.add(upstream);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (Upstream upstream : all) {
+                if (upstream != exclude) {
+                    candidates.add(upstream);
+                }
+            }
+        }
+        int size = candidates.size();
+        if (size == 0) {
+            return null;
+        }
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        Upstream a = candidates.get(first);
+        Upstream b = candidates.get(second);
+        return a.cost() <= b.cost() ? a : b;
+    }
+
+    /**
+     * Whether one more instance may be ejected without exceeding {@code maxEjectionPercent}.
+     */
+    public boolean canEject(int maxEjectionPercent) {
+        List<Upstream> all = upstreams;
+        long now = System.nanoTime();
+        int ejected = 0;
+        for (Upstream upstream : all) {
+            if (upstream.isEjected(now)) {
+                ejected++;
+            }
+        }
+        return (ejected + 1) * 100 <= all.size() * maxEjectionPercent;
+    }
+}
@@ -0,0 +1,78 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Samples saturation of the Reactor Netty event loops shared by the gateway server and its HTTP client.
+ * Once a second every loop is handed a no-op task; the time until it runs is the loop's scheduling lag.
+ */
+@Component
+public class EventLoopMonitor {
+
+    private static final Duration PROBE_INTERVAL = Duration.ofSeconds(1);
+
+    private List<EventExecutor> loops = List.of();
+    private AtomicLongArray lagNanos = new AtomicLongArray(0);
+
+    private Disposable probeTask;
+
+    @PostConstruct
+    public void start() {
+        EventLoopGroup group = HttpResources.get().onServer(LoopResources.DEFAULT_NATIVE);
+        List<EventExecutor> executors = new ArrayList<>();
+        group.forEach(executors::add);
+        loops = List.copyOf(executors);
+        lagNanos = new AtomicLongArray(loops.size());
+        probeTask = Flux.interval(PROBE_INTERVAL).subscribe(tick -> probe());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (probeTask != null) {
+            probeTask.dispose();
+        }
+    }
+
+    public int getLoopCount() {
+        return loops.size();
+    }
+
+    public long getLagNanos(int loop) {
+        return lagNanos.get(loop);
+    }
+
+    /**
+     * Tasks queued on the loop, or -1 when the executor does not expose it.
+     */
+    public int getPendingTasks(int loop) {
+        EventExecutor executor = loops.get(loop);
+        return executor instanceof SingleThreadEventExecutor singleThread ? singleThread.pendingTasks() : -1;
+    }
+
+    private void probe() {
+        for (int i = 0; i < loops.size(); i++) {
+            int loop = i;
+            long submitted = System.nanoTime();
+            try {
+                loops.get(i).execute(() -> lagNanos.set(loop, System.nanoTime() - submitted));
+            } catch (RejectedExecutionException e) {
+                // Loop is shutting down
+            }
+        }
+    }
+}
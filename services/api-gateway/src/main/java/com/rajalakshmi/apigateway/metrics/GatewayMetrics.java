@@ -0,0 +1,33 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of per-route latency histograms. Lookups on the request path do not allocate once a route
+ * and status have been seen.
+ */
+@Component
+public class GatewayMetrics {
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    public void record(String routeId, int status, long totalNanos, long upstreamNanos) {
+        RouteMetrics metrics = routes.get(routeId);
+        if (metrics == null) {
+            metrics = routes.computeIfAbsent(routeId, RouteMetrics::new);
+        }
+        metrics.record(status, totalNanos, upstreamNanos);
+    }
+
+    public RouteMetrics get(String routeId) {
+        return routes.get(routeId);
+    }
+
+    public Collection<RouteMetrics> getRoutes() {
+        return routes.values();
+    }
+}
@@ -0,0 +1,82 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution in microseconds. {@link #recordNanos} is wait-free and allocation-free; the
+ * histograms are only assembled when metrics are read.
+ * <p>
+ * Percentiles cover a sliding window of the last few minutes so that they keep following the current
+ * latency; count and sum are cumulative since startup, as Prometheus expects of a summary. Samples are
+ * moved into the window when metrics are read, so they are placed in time to within one read interval.
+ */
+public class LatencyHistogram {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private static final long SLICE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SLICES = 5;
+
+    private final Recorder recorder = new Recorder(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    // Guarded by this; a ring of per-minute histograms, the current one at index current
+    private final Histogram[] slices = new Histogram[SLICES];
+    private int current;
+    private long currentSliceStartNanos = System.nanoTime();
+    private Histogram interval;
+
+    public LatencyHistogram() {
+        for (int i = 0; i < SLICES; i++) {
+            slices[i] = new Histogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        long micros = nanos / 1000;
+        if (micros < 1) {
+            micros = 1;
+        } else if (micros > HIGHEST_TRACKABLE_MICROS) {
+            micros = HIGHEST_TRACKABLE_MICROS;
+        }
+        recorder.recordValue(micros);
+        count.increment();
+        sumMicros.add(micros);
+    }
+
+    /**
+     * Percentiles over the last {@value #SLICES} minutes together with the totals since startup.
+     */
+    public synchronized Snapshot snapshot() {
+        rotate(System.nanoTime());
+        interval = recorder.getIntervalHistogram(interval);
+        slices[current].add(interval);
+        Histogram window = new Histogram(1, HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+        for (Histogram slice : slices) {
+            window.add(slice);
+        }
+        return new Snapshot(window, count.sum(), sumMicros.sum());
+    }
+
+    private void rotate(long now) {
+        long elapsedSlices = (now - currentSliceStartNanos) / SLICE_NANOS;
+        for (long i = 0; i < Math.min(elapsedSlices, SLICES); i++) {
+            current = (current + 1) % SLICES;
+            slices[current].reset();
+        }
+        currentSliceStartNanos += elapsedSlices * SLICE_NANOS;
+    }
+
+    /**
+     * {@code window} holds the recent samples; {@code count} and {@code sumMicros} everything since startup.
+     */
+    public record Snapshot(Histogram window, long count, long sumMicros) {
+    }
+}
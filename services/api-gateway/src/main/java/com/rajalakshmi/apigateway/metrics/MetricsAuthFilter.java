@@ -0,0 +1,58 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * Keeps /gateway/metrics, which names every backend instance, to the monitoring user.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricsAuthFilter implements WebFilter {
+
+    private static final String PATH = "/gateway/metrics";
+
+    @Autowired
+    private MetricsProperties properties;
+
+    private byte[] expected;
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.hasText(properties.getPassword())) {
+            String credentials = properties.getUsername() + ":" + properties.getPassword();
+            expected = ("Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!path.equals(PATH) && !path.startsWith(PATH + "/")) {
+            return chain.filter(exchange);
+        }
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (expected != null && authorization != null
+                && MessageDigest.isEqual(expected, authorization.getBytes(StandardCharsets.UTF_8))) {
+            return chain.filter(exchange);
+        }
+        exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+        exchange.getResponse().getHeaders().set(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"gateway-metrics\"");
+        return exchange.getResponse().setComplete();
+    }
+}
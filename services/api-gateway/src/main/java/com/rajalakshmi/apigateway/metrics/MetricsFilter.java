@@ -0,0 +1,92 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+
+import java.util.function.Consumer;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Times every routed exchange end to end and splits it into upstream time and gateway overhead.
+ */
+@Component
+public class MetricsFilter implements GlobalFilter, Ordered {
+
+    // Status recorded when the client went away before the response was complete
+    private static final int CLIENT_CLOSED_REQUEST = 499;
+
+    @Autowired
+    private GatewayMetrics metrics;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        TimedExchange timing = new TimedExchange(exchange, System.nanoTime());
+        exchange.getAttributes().put(RequestTiming.ATTR, timing);
+        return chain.filter(exchange)
+                .doOnEach(timing)
+                .doOnCancel(timing);
+    }
+
+    private void record(ServerWebExchange exchange, RequestTiming timing, int status) {
+        long totalNanos = System.nanoTime() - timing.getStartNanos();
+        Route route = exchange.getRequiredAttribute(GATEWAY_ROUTE_ATTR);
+        metrics.record(route.getId(), status, totalNanos, timing.getUpstreamNanos());
+    }
+
+    private static int status(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null ? status.value() : 200;
+    }
+
+    private static int statusOf(Throwable error) {
+        return error instanceof ResponseStatusException statusException
+                ? statusException.getStatusCode().value()
+                : 500;
+    }
+
+    /**
+     * The exchange's timing and its completion callbacks in one object, so timing an exchange costs a
+     * single allocation besides the operators themselves.
+     */
+    private final class TimedExchange extends RequestTiming implements Consumer<Signal<Void>>, Runnable {
+
+        private final ServerWebExchange exchange;
+
+        TimedExchange(ServerWebExchange exchange, long startNanos) {
+            super(startNanos);
+            this.exchange = exchange;
+        }
+
+        // Completion or error
+        @Override
+        public void accept(Signal<Void> signal) {
+            if (signal.isOnError()) {
+                failedWith(statusOf(signal.getThrowable()));
+                record(exchange, this, getErrorStatus());
+            } else if (signal.isOnComplete()) {
+                record(exchange, this, status(exchange));
+            }
+        }
+
+        // The client went away before the response was complete
+        @Override
+        public void run() {
+            record(exchange, this, CLIENT_CLOSED_REQUEST);
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
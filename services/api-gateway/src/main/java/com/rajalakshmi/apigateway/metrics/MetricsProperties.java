@@ -0,0 +1,28 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "gateway.metrics")
+public class MetricsProperties {
+
+    // HTTP basic credentials for /gateway/metrics. The endpoints are closed to everyone while no password is set.
+    private String username = "monitoring";
+
+    private String password;
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
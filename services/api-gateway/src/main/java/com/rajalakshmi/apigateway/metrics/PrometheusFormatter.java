@@ -0,0 +1,113 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import com.rajalakshmi.apigateway.loadbalancer.Upstream;
+import com.rajalakshmi.apigateway.loadbalancer.UpstreamPool;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * Renders gateway metrics in the Prometheus text exposition format (version 0.0.4).
+ * Latency histograms are exported as summaries with fixed quantiles over the recent window of
+ * {@link LatencyHistogram}, and cumulative count and sum.
+ */
+public class PrometheusFormatter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final StringBuilder out = new StringBuilder(8192);
+
+    public PrometheusFormatter routes(Collection<RouteMetrics> routes) {
+        header("gateway_request_duration_seconds", "summary",
+                "Request latency by route and status; phase splits total time into upstream time and gateway overhead.");
+        for (RouteMetrics route : routes) {
+            route.forEach((metrics, status) -> {
+                for (RouteMetrics.Phase phase : RouteMetrics.Phase.values()) {
+                    String labels = "route=\"" + escape(route.getRouteId()) + "\",status=\"" + status
+                            + "\",phase=\"" + phase.name().toLowerCase(Locale.ROOT) + "\"";
+                    summary("gateway_request_duration_seconds", labels, metrics.get(phase).snapshot());
+                }
+            });
+        }
+        return this;
+    }
+
+    public PrometheusFormatter upstreams(Collection<UpstreamPool> pools, int maxConnectionsPerInstance) {
+        header("gateway_upstream_duration_seconds", "summary", "Upstream response time by backend instance.");
+        for (UpstreamPool pool : pools) {
+            for (Upstream upstream : pool.getUpstreams()) {
+                summary("gateway_upstream_duration_seconds", labels(upstream), upstream.getLatency().snapshot());
+            }
+        }
+        long now = System.nanoTime();
+        header("gateway_upstream_in_flight", "gauge", "Requests currently outstanding to the instance.");
+        forEachUpstream(pools, upstream -> sample("gateway_upstream_in_flight", labels(upstream),
+                upstream.getInFlight()));
+        header("gateway_upstream_pool_utilization", "gauge",
+                "Outstanding requests as a fraction of the connection pool limit per instance.");
+        forEachUpstream(pools, upstream -> sample("gateway_upstream_pool_utilization", labels(upstream),
+                (double) upstream.getInFlight() / maxConnectionsPerInstance));
+        header("gateway_upstream_latency_ewma_seconds", "gauge", "Peak EWMA latency the load balancer picks on.");
+        forEachUpstream(pools, upstream -> sample("gateway_upstream_latency_ewma_seconds", labels(upstream),
+                upstream.getLatencyEwmaNanos() / 1e9));
+        header("gateway_upstream_healthy", "gauge", "1 when the instance passes active health checks.");
+        forEachUpstream(pools, upstream -> sample("gateway_upstream_healthy", labels(upstream),
+                upstream.isHealthy() ? 1 : 0));
+        header("gateway_upstream_ejected", "gauge", "1 while the instance is ejected as an outlier.");
+        forEachUpstream(pools, upstream -> sample("gateway_upstream_ejected", labels(upstream),
+                upstream.isEjected(now) ? 1 : 0));
+        return this;
+    }
+
+    public PrometheusFormatter eventLoops(EventLoopMonitor monitor) {
+        header("gateway_event_loop_lag_seconds", "gauge", "Delay before a task submitted to the event loop ran.");
+        for (int loop = 0; loop < monitor.getLoopCount(); loop++) {
+            sample("gateway_event_loop_lag_seconds", "loop=\"" + loop + "\"", monitor.getLagNanos(loop) / 1e9);
+        }
+        header("gateway_event_loop_pending_tasks", "gauge", "Tasks waiting in the event loop queue.");
+        for (int loop = 0; loop < monitor.getLoopCount(); loop++) {
+            sample("gateway_event_loop_pending_tasks", "loop=\"" + loop + "\"", monitor.getPendingTasks(loop));
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void summary(String name, String labels, LatencyHistogram.Snapshot snapshot) {
+        for (double quantile : QUANTILES) {
+            sample(name, labels + ",quantile=\"" + quantile + "\"",
+                    snapshot.window().getValueAtPercentile(quantile * 100) / 1e6);
+        }
+        sample(name + "_sum", labels, snapshot.sumMicros() / 1e6);
+        sample(name + "_count", labels, snapshot.count());
+    }
+
+    private void header(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(String name, String labels, double value) {
+        out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private static void forEachUpstream(Collection<UpstreamPool> pools, Consumer<Upstream> action) {
+        for (UpstreamPool pool : pools) {
+            pool.getUpstreams().forEach(action);
+        }
+    }
+
+    private static String labels(Upstream upstream) {
+        return "service=\"" + escape(upstream.getServiceId())
+                + "\",instance=\"" + escape(upstream.getUri().toString()) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
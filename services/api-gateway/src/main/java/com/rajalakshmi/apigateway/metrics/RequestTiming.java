@@ -0,0 +1,41 @@
+package com.rajalakshmi.apigateway.metrics;
+
+/**
+ * Per-exchange timing shared between {@link MetricsFilter} and the routing filters.
+ */
+public class RequestTiming {
+
+    public static final String ATTR = RequestTiming.class.getName();
+
+    private final long startNanos;
+    // Written by the routing filters on the upstream response thread, read when the exchange completes
+    private volatile long upstreamNanos;
+    private int errorStatus;
+
+    public RequestTiming(long startNanos) {
+        this.startNanos = startNanos;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getUpstreamNanos() {
+        return upstreamNanos;
+    }
+
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Time from dispatching the request upstream to receiving the response headers.
+     */
+    public void upstreamFinished(long upstreamNanos) {
+        this.upstreamNanos = upstreamNanos;
+    }
+
+    public void failedWith(int status) {
+        this.errorStatus = status;
+    }
+}
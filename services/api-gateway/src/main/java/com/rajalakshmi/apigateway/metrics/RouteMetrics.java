@@ -0,0 +1,87 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Latency histograms of one route, one set per response status.
+ */
+public class RouteMetrics {
+
+    private static final int MAX_STATUS = 600;
+
+    private final String routeId;
+
+    private final AtomicReferenceArray<StatusMetrics> byStatus = new AtomicReferenceArray<>(MAX_STATUS);
+
+    public RouteMetrics(String routeId) {
+        this.routeId = routeId;
+    }
+
+    public String getRouteId() {
+        return routeId;
+    }
+
+    public void record(int status, long totalNanos, long upstreamNanos) {
+        StatusMetrics metrics = forStatus(status);
+        metrics.total.recordNanos(totalNanos);
+        if (upstreamNanos > 0) {
+            metrics.upstream.recordNanos(upstreamNanos);
+            metrics.overhead.recordNanos(totalNanos - upstreamNanos);
+        }
+    }
+
+    public StatusMetrics get(int status) {
+        return status >= 0 && status < MAX_STATUS ? byStatus.get(status) : null;
+    }
+
+    public void forEach(ObjIntConsumer<StatusMetrics> consumer) {
+        for (int status = 0; status < MAX_STATUS; status++) {
+            StatusMetrics metrics = byStatus.get(status);
+            if (metrics != null) {
+                consumer.accept(metrics, status);
+            }
+        }
+    }
+
+    private StatusMetrics forStatus(int status) {
+        int index = status >= 0 && status < MAX_STATUS ? status : 0;
+        StatusMetrics metrics = byStatus.get(index);
+        if (metrics == null) {
+            byStatus.compareAndSet(index, null, new StatusMetrics());
+            metrics = byStatus.get(index);
+        }
+        return metrics;
+    }
+
+    public static class StatusMetrics {
+
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final LatencyHistogram overhead = new LatencyHistogram();
+        private final LatencyHistogram upstream = new LatencyHistogram();
+
+        public LatencyHistogram getTotal() {
+            return total;
+        }
+
+        public LatencyHistogram getOverhead() {
+            return overhead;
+        }
+
+        public LatencyHistogram getUpstream() {
+            return upstream;
+        }
+
+        public LatencyHistogram get(Phase phase) {
+            return switch (phase) {
+                case TOTAL -> total;
+                case OVERHEAD -> overhead;
+                case UPSTREAM -> upstream;
+            };
+        }
+    }
+
+    public enum Phase {
+        TOTAL, OVERHEAD, UPSTREAM
+    }
+}
@@ -0,0 +1,28 @@
+package com.rajalakshmi.apigateway.resilience;
+
+/**
+ * Token bucket that caps hedges at a fraction of requests. Every hedgeable request adds a fraction of a
+ * token and every hedge spends a whole one, so when all instances are slow at once only that fraction
+ * of requests is sent twice.
+ */
+public class HedgeBudget {
+
+    // Guarded by this
+    private double tokens;
+
+    public HedgeBudget(int burst) {
+        this.tokens = burst;
+    }
+
+    public synchronized void onRequest(ResilienceProperties.Hedge hedge) {
+        tokens = Math.min(hedge.getBudgetBurst(), tokens + hedge.getBudgetPercent() / 100);
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package com.rajalakshmi.apigateway.resilience;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks recent upstream latencies of one route and turns them into the delay after which a GET is hedged.
+ */
+public class HedgeDelayTracker {
+
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Recorder recorder = new Recorder(2);
+
+    private final AtomicLong nextRefreshNanos = new AtomicLong(System.nanoTime() + REFRESH_NANOS);
+
+    // Guarded by this; intervals are added up until there are enough samples for a stable percentile
+    private final Histogram accumulated = new Histogram(2);
+    private Histogram interval;
+
+    private volatile long thresholdMicros = -1;
+
+    public void record(long latencyNanos) {
+        recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+    }
+
+    public Duration delay(ResilienceProperties.Hedge hedge) {
+        long now = System.nanoTime();
+        long next = nextRefreshNanos.get();
+        if (now - next >= 0 && nextRefreshNanos.compareAndSet(next, now + REFRESH_NANOS)) {
+            refresh(hedge);
+        }
+        long micros = thresholdMicros;
+        if (micros < 0) {
+            return hedge.getMaxDelay();
+        }
+        Duration delay = Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(micros));
+        if (delay.compareTo(hedge.getMinDelay()) < 0) {
+            return hedge.getMinDelay();
+        }
+        if (delay.compareTo(hedge.getMaxDelay()) > 0) {
+            return hedge.getMaxDelay();
+        }
+        return delay;
+    }
+
+    private synchronized void refresh(ResilienceProperties.Hedge hedge) {
+        interval = recorder.getIntervalHistogram(interval);
+        accumulated.add(interval);
+        if (accumulated.getTotalCount() >= hedge.getMinSamples()) {
+            thresholdMicros = accumulated.getValueAtPercentile(hedge.getPercentile());
+            accumulated.reset();
+        }
+    }
+}
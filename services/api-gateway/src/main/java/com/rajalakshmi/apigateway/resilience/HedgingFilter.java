@@ -0,0 +1,221 @@
+package com.rajalakshmi.apigateway.resilience;
+
+import com.rajalakshmi.apigateway.loadbalancer.LatencyAwareLoadBalancer;
+import com.rajalakshmi.apigateway.loadbalancer.LoadBalancerFilter;
+import com.rajalakshmi.apigateway.loadbalancer.Upstream;
+import com.rajalakshmi.apigateway.metrics.RequestTiming;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+/**
+ * Hedged requests for idempotent GETs on load-balanced routes. The request goes to the instance the
+ * load balancer picked; if it has not answered after the route's latency percentile, the same request
+ * is sent to a second instance. The first response wins and the other call is cancelled.
+ * <p>
+ * Only GETs on the route's allowlisted paths are hedged, and only within the route's hedge budget. Those
+ * exchanges are proxied here instead of by NettyRoutingFilter, with the response aggregated in memory up
+ * to the route's body size limit.
+ */
+@Component
+public class HedgingFilter implements GlobalFilter, Ordered {
+
+    // After the load balancer has picked the primary instance, just before NettyRoutingFilter
+    public static final int ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    @Autowired
+    private ResilienceProperties properties;
+
+    @Autowired
+    private LatencyAwareLoadBalancer loadBalancer;
+
+    @Autowired
+    private HttpClient httpClient;
+
+    @Autowired
+    private ObjectProvider<List<HttpHeadersFilter>> headersFilters;
+
+    private final Map<String, HedgeDelayTracker> trackers = new ConcurrentHashMap<>();
+
+    private final Map<String, HedgeBudget> budgets = new ConcurrentHashMap<>();
+
+    private final Map<String, List<PathPattern>> hedgePaths = new ConcurrentHashMap<>();
+
+    private final Map<String, HttpClient> routeClients = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        Upstream primary = exchange.getAttribute(LoadBalancerFilter.UPSTREAM_ATTR);
+        if (route == null || primary == null || isAlreadyRouted(exchange)
+                || !HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+        ResilienceProperties.RoutePolicy policy = properties.policy(route.getId());
+        ResilienceProperties.Hedge hedge = policy.getHedge();
+        if (!hedge.isEnabled() || !isHedgeable(route.getId(), hedge, exchange)) {
+            return chain.filter(exchange);
+        }
+        setAlreadyRouted(exchange);
+        // The primary's outcome is reported below, where a stall that lost the race can be told apart
+        exchange.getAttributes().put(LoadBalancerFilter.OUTCOME_REPORTED_ATTR, true);
+
+        HedgeDelayTracker tracker = trackers.computeIfAbsent(route.getId(), id -> new HedgeDelayTracker());
+        HedgeBudget budget = budgets.computeIfAbsent(route.getId(), id -> new HedgeBudget(hedge.getBudgetBurst()));
+        budget.onRequest(hedge);
+        HttpClient client = routeClients.computeIfAbsent(route.getId(), id -> httpClient
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) policy.getConnectTimeout().toMillis())
+                .responseTimeout(policy.getResponseTimeout()));
+        URI url = exchange.getRequiredAttribute(GATEWAY_REQUEST_URL_ATTR);
+        HttpHeaders headers = HttpHeadersFilter.filterRequest(headersFilters.getIfAvailable(List::of), exchange);
+        long maxBodyBytes = hedge.getMaxBodySize().toBytes();
+        Duration delay = tracker.delay(hedge);
+        long primaryStart = exchange.getRequiredAttribute(LoadBalancerFilter.UPSTREAM_START_ATTR);
+        AtomicBoolean hedgeWon = new AtomicBoolean();
+
+        Mono<UpstreamResponse> first = send(client, url, headers, maxBodyBytes)
+                .doOnSuccess(response -> tracker.record(
+                        loadBalancer.onComplete(primary, primaryStart, response.status() >= 500)))
+                .doOnError(error -> loadBalancer.onComplete(primary, primaryStart, true))
+                .doOnCancel(() -> {
+                    if (hedgeWon.get()) {
+                        // Its latency is at least this long; leaving it out would drag the hedge delay down
+                        tracker.record(loadBalancer.onAbandoned(primary, primaryStart));
+                    } else {
+                        loadBalancer.onCancel(primary);
+                    }
+                });
+        Mono<UpstreamResponse> second = Mono.delay(delay)
+                .then(Mono.defer(() -> budget.tryAcquire()
+                        ? hedge(client, primary, url, headers, maxBodyBytes, tracker)
+                        : Mono.<UpstreamResponse>empty()))
+                .doOnNext(response -> hedgeWon.set(true));
+        return Mono.firstWithValue(first, second)
+                .onErrorMap(NoSuchElementException.class,
+                        e -> e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e)
+                .flatMap(response -> {
+                    RequestTiming timing = exchange.getAttribute(RequestTiming.ATTR);
+                    if (timing != null) {
+                        // Dispatch to the winning response's headers, like a proxied exchange; not the body
+                        timing.upstreamFinished(response.headersNanos() - primaryStart);
+                    }
+                    return write(exchange, response);
+                });
+    }
+
+    private boolean isHedgeable(String routeId, ResilienceProperties.Hedge hedge, ServerWebExchange exchange) {
+        List<PathPattern> patterns = hedgePaths.computeIfAbsent(routeId, id -> hedge.getPaths().stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList());
+        PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Mono<UpstreamResponse> hedge(HttpClient client, Upstream primary, URI url, HttpHeaders headers,
+                                         long maxBodyBytes, HedgeDelayTracker tracker) {
+        Upstream secondary = loadBalancer.choose(primary.getServiceId(), primary);
+        if (secondary == null) {
+            return Mono.empty();
+        }
+        long start = loadBalancer.onStart(secondary);
+        return send(client, secondary.reconstruct(url), headers, maxBodyBytes)
+                .doOnSuccess(response -> tracker.record(
+                        loadBalancer.onComplete(secondary, start, response.status() >= 500)))
+                .doOnError(error -> loadBalancer.onComplete(secondary, start, true))
+                .doOnCancel(() -> loadBalancer.onCancel(secondary));
+    }
+
+    private Mono<UpstreamResponse> send(HttpClient client, URI url, HttpHeaders headers, long maxBodyBytes) {
+        return client
+                .headers(outbound -> {
+                    headers.forEach(outbound::set);
+                    outbound.remove(HttpHeaders.HOST);
+                })
+                .get()
+                .uri(url)
+                .response((response, body) -> {
+                    long headersNanos = System.nanoTime();
+                    if (response.responseHeaders().getInt(HttpHeaders.CONTENT_LENGTH, -1) > maxBodyBytes) {
+                        return Mono.error(tooLarge());
+                    }
+                    return body.asByteArray()
+                            .reduceWith(ByteArrayOutputStream::new, (buffer, chunk) -> {
+                                if (buffer.size() + (long) chunk.length > maxBodyBytes) {
+                                    throw tooLarge();
+                                }
+                                buffer.writeBytes(chunk);
+                                return buffer;
+                            })
+                            .map(buffer -> new UpstreamResponse(response.status().code(),
+                                    response.responseHeaders(), buffer.toByteArray(), headersNanos));
+                })
+                .next()
+                .onErrorMap(ReadTimeoutException.class, e -> new ResponseStatusException(
+                        HttpStatus.GATEWAY_TIMEOUT, "Response took longer than the route timeout", e));
+    }
+
+    private static ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.BAD_GATEWAY, "Response exceeds the route's hedging body limit");
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, UpstreamResponse upstreamResponse) {
+        HttpHeaders received = new HttpHeaders();
+        upstreamResponse.headers().forEach(header -> received.add(header.getKey(), header.getValue()));
+        HttpHeaders filtered = HttpHeadersFilter.filter(headersFilters.getIfAvailable(List::of), received,
+                exchange, HttpHeadersFilter.Type.RESPONSE);
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatusCode.valueOf(upstreamResponse.status()));
+        response.getHeaders().putAll(filtered);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(upstreamResponse.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(upstreamResponse.body())));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private record UpstreamResponse(int status, io.netty.handler.codec.http.HttpHeaders headers, byte[] body,
+                                    long headersNanos) {
+    }
+}
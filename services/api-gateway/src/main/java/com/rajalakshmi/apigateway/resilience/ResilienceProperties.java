@@ -0,0 +1,222 @@
+package com.rajalakshmi.apigateway.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "gateway.resilience")
+public class ResilienceProperties {
+
+    // Keyed by route id; routes without an entry use the defaults below
+    private Map<String, RoutePolicy> routes = new HashMap<>();
+
+    private final RoutePolicy defaults = new RoutePolicy();
+
+    public Map<String, RoutePolicy> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, RoutePolicy> routes) {
+        this.routes = routes;
+    }
+
+    public RoutePolicy policy(String routeId) {
+        return routes.getOrDefault(routeId, defaults);
+    }
+
+    public static class RoutePolicy {
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private Duration responseTimeout = Duration.ofSeconds(10);
+
+        private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+        private final Hedge hedge = new Hedge();
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getResponseTimeout() {
+            return responseTimeout;
+        }
+
+        public void setResponseTimeout(Duration responseTimeout) {
+            this.responseTimeout = responseTimeout;
+        }
+
+        public CircuitBreaker getCircuitBreaker() {
+            return circuitBreaker;
+        }
+
+        public Hedge getHedge() {
+            return hedge;
+        }
+    }
+
+    public static class CircuitBreaker {
+
+        private float failureRateThreshold = 50;
+
+        private int slidingWindowSize = 20;
+
+        private int minimumNumberOfCalls = 10;
+
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        // Probe calls let through while half-open before deciding to close or re-open
+        private int permittedCallsInHalfOpenState = 3;
+
+        public float getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(float failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public int getSlidingWindowSize() {
+            return slidingWindowSize;
+        }
+
+        public void setSlidingWindowSize(int slidingWindowSize) {
+            this.slidingWindowSize = slidingWindowSize;
+        }
+
+        public int getMinimumNumberOfCalls() {
+            return minimumNumberOfCalls;
+        }
+
+        public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+        }
+
+        public Duration getWaitDurationInOpenState() {
+            return waitDurationInOpenState;
+        }
+
+        public void setWaitDurationInOpenState(Duration waitDurationInOpenState) {
+            this.waitDurationInOpenState = waitDurationInOpenState;
+        }
+
+        public int getPermittedCallsInHalfOpenState() {
+            return permittedCallsInHalfOpenState;
+        }
+
+        public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+        }
+    }
+
+    public static class Hedge {
+
+        // Only GETs whose path matches one of the paths below are hedged
+        private boolean enabled = false;
+
+        // Path patterns of small, idempotent GETs. Streaming and large responses must stay off this list;
+        // they are proxied by NettyRoutingFilter instead of being buffered here.
+        private List<String> paths = new ArrayList<>();
+
+        // A hedged response larger than this fails with 502 rather than being buffered
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+
+        // Hedges allowed as a percentage of hedgeable requests, so a slow backend does not get double the load
+        private double budgetPercent = 10;
+
+        // Hedges that may be spent at once after a quiet spell
+        private int budgetBurst = 10;
+
+        // A GET still unanswered after this percentile of recent latencies gets a second request
+        private double percentile = 95.0;
+
+        private Duration minDelay = Duration.ofMillis(20);
+
+        // Also used until enough samples have been seen to compute the percentile
+        private Duration maxDelay = Duration.ofSeconds(1);
+
+        private int minSamples = 50;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+        }
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        public double getBudgetPercent() {
+            return budgetPercent;
+        }
+
+        public void setBudgetPercent(double budgetPercent) {
+            this.budgetPercent = budgetPercent;
+        }
+
+        public int getBudgetBurst() {
+            return budgetBurst;
+        }
+
+        public void setBudgetBurst(int budgetBurst) {
+            this.budgetBurst = budgetBurst;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public void setPercentile(double percentile) {
+            this.percentile = percentile;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public void setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.rajalakshmi.apigateway;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Minimal HTTP backend for gateway tests. Answers every path with a fixed status after a configurable delay.
+ * Health check probes on {@code /} are answered the same way but not counted as requests.
+ */
+public class StubBackend implements AutoCloseable {
+
+    private final HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+
+    private volatile LongSupplier delayMillis = () -> 0;
+    private volatile IntSupplier status = () -> 200;
+
+    public StubBackend(String name) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> handle(exchange, name));
+        server.start();
+    }
+
+    public StubBackend delay(LongSupplier delayMillis) {
+        this.delayMillis = delayMillis;
+        return this;
+    }
+
+    public StubBackend status(IntSupplier status) {
+        this.status = status;
+        return this;
+    }
+
+    public URI uri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public void reset() {
+        requests.set(0);
+    }
+
+    private void handle(HttpExchange exchange, String name) throws IOException {
+        if (!"/".equals(exchange.getRequestURI().getPath())) {
+            requests.incrementAndGet();
+        }
+        try {
+            long delay = delayMillis.getAsLong();
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+            byte[] body = name.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status.getAsInt(), body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
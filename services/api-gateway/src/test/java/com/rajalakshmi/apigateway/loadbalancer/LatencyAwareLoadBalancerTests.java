@@ -0,0 +1,76 @@
+package com.rajalakshmi.apigateway.loadbalancer;
+
+import com.rajalakshmi.apigateway.StubBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LatencyAwareLoadBalancerTests {
+
+    private static StubBackend fast;
+    private static StubBackend slow;
+    private static StubBackend broken;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void backends(DynamicPropertyRegistry registry) {
+        try {
+            fast = new StubBackend("fast");
+            slow = new StubBackend("slow").delay(() -> 80);
+            broken = new StubBackend("broken").status(() -> 500);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        registry.add("gateway.loadbalancer.instances.feedback-service",
+                () -> fast.uri() + "," + slow.uri() + "," + broken.uri());
+        registry.add("gateway.loadbalancer.instances.user-service", () -> fast.uri().toString());
+        registry.add("gateway.loadbalancer.health-check.interval", () -> "200ms");
+        registry.add("gateway.loadbalancer.health-check.unhealthy-threshold", () -> "2");
+        registry.add("gateway.loadbalancer.outlier.consecutive-failures", () -> "3");
+    }
+
+    @AfterAll
+    static void stopBackends() {
+        fast.close();
+        slow.close();
+        broken.close();
+    }
+
+    @BeforeEach
+    void resetCounters() {
+        fast.reset();
+        slow.reset();
+        broken.reset();
+    }
+
+    @Test
+    void prefersTheFastestInstanceAndKeepsFailingOneOut() {
+        for (int i = 0; i < 200; i++) {
+            webTestClient.get().uri("/feedback/ping").exchange().expectBody().returnResult();
+        }
+
+        assertThat(fast.requests()).isGreaterThan(slow.requests() * 3);
+        assertThat(broken.requests()).isLessThan(20);
+    }
+
+    @Test
+    void routesToTheResolvedInstance() {
+        webTestClient.get().uri("/users/ping")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("fast");
+    }
+}
@@ -0,0 +1,34 @@
+package com.rajalakshmi.apigateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UpstreamTests {
+
+    private static final long DECAY = TimeUnit.SECONDS.toNanos(10);
+    private static final long PENALTY = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void fastFailuresNeverMakeAnInstanceCheaper() {
+        Upstream failing = new Upstream("feedback-service", URI.create("http://failing"));
+        Upstream healthy = new Upstream("feedback-service", URI.create("http://healthy"));
+        long now = System.nanoTime();
+
+        failing.requestStarted();
+        failing.requestFinished(TimeUnit.MILLISECONDS.toNanos(1), true, now, DECAY, PENALTY);
+        healthy.requestStarted();
+        healthy.requestFinished(TimeUnit.MILLISECONDS.toNanos(50), false, now, DECAY, PENALTY);
+
+        assertThat(failing.getLatencyEwmaNanos()).isEqualTo(PENALTY);
+        assertThat(failing.cost()).isGreaterThan(healthy.cost());
+
+        failing.requestStarted();
+        failing.requestFinished(TimeUnit.MILLISECONDS.toNanos(1), true, now + DECAY, DECAY, PENALTY);
+
+        assertThat(failing.getLatencyEwmaNanos()).isEqualTo(PENALTY);
+    }
+}
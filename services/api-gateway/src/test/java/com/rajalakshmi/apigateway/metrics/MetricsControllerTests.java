@@ -0,0 +1,83 @@
+package com.rajalakshmi.apigateway.metrics;
+
+import com.rajalakshmi.apigateway.StubBackend;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "gateway.metrics.password=scrape")
+class MetricsControllerTests {
+
+    private static StubBackend backend;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @DynamicPropertySource
+    static void backends(DynamicPropertyRegistry registry) {
+        try {
+            backend = new StubBackend("backend").delay(() -> 20);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        registry.add("gateway.loadbalancer.instances.feedback-service", () -> backend.uri().toString());
+        registry.add("gateway.loadbalancer.instances.user-service", () -> backend.uri().toString());
+        registry.add("gateway.loadbalancer.health-check.enabled", () -> "false");
+    }
+
+    @AfterAll
+    static void stopBackend() {
+        backend.close();
+    }
+
+    @Test
+    void exportsRouteAndUpstreamLatencies() {
+        for (int i = 0; i < 5; i++) {
+            webTestClient.post().uri("/users/login").exchange().expectStatus().isOk();
+        }
+
+        String body = webTestClient.get().uri("/gateway/metrics")
+                .headers(headers -> headers.setBasicAuth("monitoring", "scrape"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        assertThat(body)
+                .contains("gateway_request_duration_seconds_count{route=\"user-service\",status=\"200\",phase=\"total\"} 5")
+                .contains("gateway_request_duration_seconds_count{route=\"user-service\",status=\"200\",phase=\"upstream\"} 5")
+                .contains("gateway_upstream_duration_seconds_count{service=\"user-service\",instance=\"" + backend.uri() + "\"} 5")
+                .contains("gateway_event_loop_lag_seconds{loop=\"0\"}");
+    }
+
+    @Test
+    void answersPercentileQueries() {
+        webTestClient.post().uri("/feedback").exchange().expectStatus().isOk();
+
+        webTestClient.get().uri("/gateway/metrics/percentiles?route=feedback-service&phase=upstream&q=50,99")
+                .headers(headers -> headers.setBasicAuth("monitoring", "scrape"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.count").isEqualTo(1)
+                .jsonPath("$.percentiles['99.0']").value(p99 -> assertThat((Double) p99).isGreaterThanOrEqualTo(20.0));
+    }
+
+    @Test
+    void metricsNeedTheMonitoringUser() {
+        webTestClient.get().uri("/gateway/metrics").exchange().expectStatus().isUnauthorized();
+        webTestClient.get().uri("/gateway/metrics/upstreams/percentiles?service=user-service&instance=" + backend.uri())
+                .headers(headers -> headers.setBasicAuth("monitoring", "wrong"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+}
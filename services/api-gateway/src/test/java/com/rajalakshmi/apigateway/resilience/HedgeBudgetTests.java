@@ -0,0 +1,34 @@
+package com.rajalakshmi.apigateway.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgeBudgetTests {
+
+    @Test
+    void refillsByThePercentageOfRequestsUpToTheBurst() {
+        ResilienceProperties.Hedge hedge = new ResilienceProperties.Hedge();
+        hedge.setBudgetBurst(2);
+        hedge.setBudgetPercent(25);
+        HedgeBudget budget = new HedgeBudget(hedge.getBudgetBurst());
+
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).as("burst spent").isFalse();
+
+        for (int i = 0; i < 3; i++) {
+            budget.onRequest(hedge);
+        }
+        assertThat(budget.tryAcquire()).as("three requests earn three quarters of a hedge").isFalse();
+        budget.onRequest(hedge);
+        assertThat(budget.tryAcquire()).isTrue();
+
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest(hedge);
+        }
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).isTrue();
+        assertThat(budget.tryAcquire()).as("capped at the burst").isFalse();
+    }
+}
@@ -0,0 +1,96 @@
+package com.rajalakshmi.apigateway.resilience;
+
+import com.rajalakshmi.apigateway.ApiGatewayApplication;
+import com.rajalakshmi.apigateway.StubBackend;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Harness comparing gateway tail latency with and without hedging. Each stub backend answers in a few
+ * milliseconds but stalls on a small fraction of requests, the way an instance stuck on a long query does.
+ */
+@Tag("perf")
+class HedgingTailLatencyTests {
+
+    private static final double STALL_PROBABILITY = 0.05;
+    private static final long STALL_MILLIS = 300;
+
+    private static final int WARM_UP_REQUESTS = 150;
+    private static final int MEASURED_REQUESTS = 400;
+
+    private static StubBackend first;
+    private static StubBackend second;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void startBackends() throws Exception {
+        first = new StubBackend("first").delay(HedgingTailLatencyTests::stallSometimes);
+        second = new StubBackend("second").delay(HedgingTailLatencyTests::stallSometimes);
+    }
+
+    @AfterAll
+    static void stopBackends() {
+        first.close();
+        second.close();
+    }
+
+    private static long stallSometimes() {
+        return ThreadLocalRandom.current().nextDouble() < STALL_PROBABILITY ? STALL_MILLIS : 2;
+    }
+
+    @Test
+    void hedgingCutsTheP99() throws Exception {
+        long unhedgedP99 = p99Millis(false);
+        long hedgedP99 = p99Millis(true);
+
+        String p99s = "p99 " + unhedgedP99 + " ms without hedging, " + hedgedP99 + " ms with hedging";
+        assertThat(unhedgedP99).as(p99s).isGreaterThanOrEqualTo(STALL_MILLIS);
+        assertThat(hedgedP99).as(p99s).isLessThan(unhedgedP99 / 2);
+    }
+
+    private long p99Millis(boolean hedging) throws Exception {
+        // Arguments rather than default properties, which application.properties would override
+        try (ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ApiGatewayApplication.class)
+                .run("--server.port=0",
+                        "--gateway.loadbalancer.instances.feedback-service=" + first.uri() + "," + second.uri(),
+                        "--gateway.loadbalancer.instances.user-service=" + first.uri(),
+                        "--gateway.loadbalancer.health-check.enabled=false",
+                        "--gateway.resilience.routes.feedback-service.hedge.enabled=" + hedging,
+                        "--gateway.resilience.routes.feedback-service.hedge.paths=/feedback/ping",
+                        "--gateway.resilience.routes.feedback-service.hedge.budget-percent=20",
+                        "--gateway.resilience.routes.feedback-service.hedge.percentile=90")) {
+            URI uri = URI.create("http://localhost:" + gateway.getEnvironment().getProperty("local.server.port")
+                    + "/feedback/ping");
+            for (int i = 0; i < WARM_UP_REQUESTS; i++) {
+                get(uri);
+            }
+            Histogram histogram = new Histogram(3);
+            for (int i = 0; i < MEASURED_REQUESTS; i++) {
+                long start = System.nanoTime();
+                assertThat(get(uri)).isEqualTo(200);
+                histogram.recordValue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return histogram.getValueAtPercentile(99);
+        }
+    }
+
+    private int get(URI uri) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.discarding())
+                .statusCode();
+    }
+}
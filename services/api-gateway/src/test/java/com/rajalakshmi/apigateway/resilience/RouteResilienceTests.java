@@ -0,0 +1,140 @@
+package com.rajalakshmi.apigateway.resilience;
+
+import com.rajalakshmi.apigateway.StubBackend;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-route timeouts, circuit breaker and hedge budget against stub backends. The user-service route has
+ * one backend and a small breaker window; the feedback-service route has two backends, a short response
+ * timeout and a hedge budget of a single token that is never refilled.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class RouteResilienceTests {
+
+    private static final Duration WAIT_IN_OPEN_STATE = Duration.ofMillis(300);
+
+    private static StubBackend users;
+    private static StubBackend feedbackFirst;
+    private static StubBackend feedbackSecond;
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReactiveResilience4JCircuitBreakerFactory circuitBreakerFactory;
+
+    @DynamicPropertySource
+    static void backends(DynamicPropertyRegistry registry) {
+        try {
+            users = new StubBackend("users");
+            feedbackFirst = new StubBackend("first");
+            feedbackSecond = new StubBackend("second");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        registry.add("gateway.loadbalancer.instances.user-service", () -> users.uri().toString());
+        registry.add("gateway.loadbalancer.instances.feedback-service",
+                () -> feedbackFirst.uri() + "," + feedbackSecond.uri());
+        registry.add("gateway.loadbalancer.health-check.enabled", () -> "false");
+        // Keep outlier ejection out of the way; these tests are about the route policies
+        registry.add("gateway.loadbalancer.outlier.consecutive-failures", () -> "1000");
+
+        String breaker = "gateway.resilience.routes.user-service.circuit-breaker.";
+        registry.add(breaker + "sliding-window-size", () -> "4");
+        registry.add(breaker + "minimum-number-of-calls", () -> "4");
+        registry.add(breaker + "failure-rate-threshold", () -> "50");
+        registry.add(breaker + "wait-duration-in-open-state", WAIT_IN_OPEN_STATE::toString);
+        registry.add(breaker + "permitted-calls-in-half-open-state", () -> "1");
+
+        String feedback = "gateway.resilience.routes.feedback-service.";
+        registry.add(feedback + "response-timeout", () -> "200ms");
+        registry.add(feedback + "hedge.enabled", () -> "true");
+        registry.add(feedback + "hedge.paths", () -> "/feedback/{id:\\d+}");
+        registry.add(feedback + "hedge.min-delay", () -> "20ms");
+        registry.add(feedback + "hedge.max-delay", () -> "20ms");
+        registry.add(feedback + "hedge.budget-burst", () -> "1");
+        registry.add(feedback + "hedge.budget-percent", () -> "0");
+    }
+
+    @AfterAll
+    static void stopBackends() {
+        users.close();
+        feedbackFirst.close();
+        feedbackSecond.close();
+    }
+
+    @BeforeEach
+    void resetBackends() {
+        for (StubBackend backend : new StubBackend[]{users, feedbackFirst, feedbackSecond}) {
+            backend.delay(() -> 0).status(() -> 200).reset();
+        }
+    }
+
+    @Test
+    void breakerOpensOnServerErrorsAndClosesAfterAHealthyProbe() throws InterruptedException {
+        users.status(() -> 503);
+        for (int i = 0; i < 4; i++) {
+            webTestClient.get().uri("/users/1").exchange().expectStatus().is5xxServerError();
+        }
+        assertThat(breakerState("user-service")).isEqualTo(CircuitBreaker.State.OPEN);
+
+        webTestClient.get().uri("/users/1").exchange().expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(users.requests()).as("calls while open are not forwarded").isEqualTo(4);
+
+        users.status(() -> 200);
+        awaitBreakerState("user-service", CircuitBreaker.State.HALF_OPEN);
+        webTestClient.get().uri("/users/1").exchange().expectStatus().isOk();
+
+        assertThat(users.requests()).isEqualTo(5);
+        assertThat(breakerState("user-service")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void slowResponseFailsWithGatewayTimeout() {
+        feedbackFirst.delay(() -> 1000);
+        feedbackSecond.delay(() -> 1000);
+
+        webTestClient.post().uri("/feedback").exchange().expectStatus().isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @Test
+    void hedgesStopOnceTheBudgetIsSpent() {
+        feedbackFirst.delay(() -> 100);
+        feedbackSecond.delay(() -> 100);
+
+        webTestClient.get().uri("/feedback/1").exchange().expectStatus().isOk();
+        assertThat(feedbackFirst.requests() + feedbackSecond.requests()).as("first request is hedged").isEqualTo(2);
+
+        webTestClient.get().uri("/feedback/1").exchange().expectStatus().isOk();
+        webTestClient.get().uri("/feedback/1").exchange().expectStatus().isOk();
+        assertThat(feedbackFirst.requests() + feedbackSecond.requests()).as("budget spent").isEqualTo(4);
+    }
+
+    private CircuitBreaker.State breakerState(String name) {
+        return circuitBreakerFactory.getCircuitBreakerRegistry().circuitBreaker(name).getState();
+    }
+
+    private void awaitBreakerState(String name, CircuitBreaker.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + WAIT_IN_OPEN_STATE.multipliedBy(10).toNanos();
+        while (breakerState(name) != state && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(breakerState(name)).isEqualTo(state);
+    }
+}
@@ -0,0 +1,10 @@
+package com.rajalakshmi.feedbackservice.config;
+
+import com.rajalakshmi.feedbackservice.dedup.DedupProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(DedupProperties.class)
+public class DedupConfig {
+}
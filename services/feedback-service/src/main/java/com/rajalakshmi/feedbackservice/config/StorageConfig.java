@@ -0,0 +1,12 @@
+package com.rajalakshmi.feedbackservice.config;
+
+import com.rajalakshmi.feedbackservice.storage.StorageProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+}
@@ -2,25 +2,45 @@ package com.rajalakshmi.feedbackservice.controller;
 
 
 import com.rajalakshmi.feedbackservice.model.Feedback;
+import com.rajalakshmi.feedbackservice.model.FeedbackCluster;
+import com.rajalakshmi.feedbackservice.service.FeedbackDigestService;
 import com.rajalakshmi.feedbackservice.service.FeedbackService;
 import com.rajalakshmi.feedbackservice.service.FileStorageService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/feedback")
 public class FeedbackController {
 
+    private static final int MAX_ITEM_CHARS_LIMIT = 10_000;
+    private static final int MAX_TOTAL_CHARS_LIMIT = 200_000;
+    private static final int MAX_DIGEST_DAYS = 92;
+    private static final int MAX_CLUSTER_DAYS = 92;
+    private static final int MAX_CLUSTER_LIMIT = 1000;
+    private static final int MAX_RANGE_DAYS = 92;
+
     @Autowired
     private FeedbackService feedbackService;
 
+    @Autowired
+    private FeedbackDigestService feedbackDigestService;
+
     @Autowired
     private FileStorageService fileStorageService;
 
@@ -32,30 +52,91 @@ public class FeedbackController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Feedback>> getAllFeedback() {
-        List<Feedback> feedbackList = feedbackService.getAllFeedback();
+    public ResponseEntity<List<Feedback>> getAllFeedback(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        if (from == null && to == null && !includeArchived) {
+            return new ResponseEntity<>(feedbackService.getAllFeedback(), HttpStatus.OK);
+        }
+        // Archived months are only read for a bounded range
+        if (from == null || to == null || to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<Feedback> feedbackList = feedbackService.getAllFeedback(from, to, includeArchived);
         return new ResponseEntity<>(feedbackList, HttpStatus.OK);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Feedback> getFeedbackById(@PathVariable Long id) {
-        return feedbackService.getFeedbackById(id)
+    public ResponseEntity<Feedback> getFeedbackById(@PathVariable Long id,
+                                                    @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return feedbackService.getFeedbackById(id, includeArchived)
                 .map(feedback -> new ResponseEntity<>(feedback, HttpStatus.OK))
                 .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Feedback>> getFeedbackByUserId(@PathVariable Long userId) {
-        List<Feedback> userFeedbackList = feedbackService.getFeedbackByUserId(userId);
+    public ResponseEntity<List<Feedback>> getFeedbackByUserId(
+            @PathVariable Long userId, @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<Feedback> userFeedbackList = feedbackService.getFeedbackByUserId(userId, includeArchived);
         return new ResponseEntity<>(userFeedbackList, HttpStatus.OK);
     }
 
+    @PostMapping("/uploads")
+    public ResponseEntity<Map<String, String>> uploadFile(@RequestParam("file") MultipartFile file) {
+        String fileName;
+        try {
+            fileName = fileStorageService.storeFile(file);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("error", e.getMessage()), HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+        }
+        return new ResponseEntity<>(Map.of("fileName", fileName, "imageUrl", "/feedback/uploads/" + fileName),
+                HttpStatus.CREATED);
+    }
+
+    @GetMapping("/digest")
+    public ResponseEntity<StreamingResponseBody> getDigest(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(defaultValue = "1000") int maxItemChars,
+            @RequestParam(defaultValue = "16000") int maxTotalChars,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return digest(date, date, maxItemChars, maxTotalChars, includeArchived);
+    }
+
+    @GetMapping("/digest/range")
+    public ResponseEntity<StreamingResponseBody> getDigestRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "1000") int maxItemChars,
+            @RequestParam(defaultValue = "16000") int maxTotalChars,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        return digest(from, to, maxItemChars, maxTotalChars, includeArchived);
+    }
+
+    @GetMapping("/clusters")
+    public ResponseEntity<List<FeedbackCluster>> getClusters(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_CLUSTER_DAYS
+                || limit < 1 || limit > MAX_CLUSTER_LIMIT) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(feedbackService.getClusters(from, to, limit, includeArchived), HttpStatus.OK);
+    }
+
     @GetMapping("/uploads/{filename:.+}")
     @ResponseBody
     public ResponseEntity<Resource> serveFile(@PathVariable String filename) {
         Resource file = fileStorageService.loadFileAsResource(filename);
-        return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,
-                "inline; filename=\"" + file.getFilename() + "\"").body(file);
+        Optional<MediaType> contentType = fileStorageService.contentType(filename);
+        return ResponseEntity.ok()
+                .contentType(contentType.orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .header("X-Content-Type-Options", "nosniff")
+                .header(HttpHeaders.CONTENT_DISPOSITION, (contentType.isPresent() ? "inline" : "attachment")
+                        + "; filename=\"" + file.getFilename() + "\"")
+                .body(file);
     }
 
     @PutMapping("/{id}")
@@ -79,4 +160,16 @@ public class FeedbackController {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<StreamingResponseBody> digest(LocalDate from, LocalDate to, int maxItemChars,
+                                                         int maxTotalChars, boolean includeArchived) {
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_DIGEST_DAYS
+                || maxItemChars < 1 || maxItemChars > MAX_ITEM_CHARS_LIMIT
+                || maxTotalChars < 1 || maxTotalChars > MAX_TOTAL_CHARS_LIMIT) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        StreamingResponseBody body = out -> feedbackDigestService.writeDigest(from, to, maxItemChars,
+                maxTotalChars, includeArchived, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
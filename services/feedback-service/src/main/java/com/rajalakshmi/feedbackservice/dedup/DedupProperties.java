@@ -0,0 +1,39 @@
+package com.rajalakshmi.feedbackservice.dedup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "feedback.dedup")
+public class DedupProperties {
+
+    private boolean enabled = true;
+
+    // Estimated Jaccard similarity of description shingles at which feedback joins an existing cluster
+    private double similarity = 0.7;
+
+    // New feedback is matched against this many days, today included; older days are dropped from memory
+    private int windowDays = 7;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    public void setWindowDays(int windowDays) {
+        this.windowDays = windowDays;
+    }
+}
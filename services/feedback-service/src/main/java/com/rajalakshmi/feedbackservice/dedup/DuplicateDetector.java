@@ -0,0 +1,115 @@
+package com.rajalakshmi.feedbackservice.dedup;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+/**
+ * Finds near-duplicate descriptions among recent feedback. Signatures of the last few days are kept in
+ * memory and rebuilt from the database on startup.
+ * <p>
+ * Two near-identical posts saved at the same moment may both start a cluster; that only splits a cluster
+ * and never joins unrelated texts.
+ */
+@Component
+public class DuplicateDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateDetector.class);
+
+    // 32 bands of 4 rows: texts at 0.7 similarity share a band with probability above 0.99, at 0.3 about 0.23
+    private static final int BANDS = 32;
+    private static final int ROWS = 4;
+
+    // Fixed so that signatures mean the same thing across restarts
+    private static final long SEED = 0x6665656462616B6CL;
+
+    @Autowired
+    private DedupProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final MinHasher hasher = new MinHasher(BANDS * ROWS, SEED);
+    private final DuplicateIndex index = new DuplicateIndex(BANDS, ROWS);
+
+    // After startup so the schema, including cluster_id, is in place
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        // Rows saved before every feedback carried a cluster id each form a cluster of their own
+        int backfilled = jdbcTemplate.update("update feedback set cluster_id = id where cluster_id is null");
+        if (backfilled > 0) {
+            log.info("Set the cluster id of {} older feedback rows to their own id", backfilled);
+        }
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDate oldest = oldestDay(LocalDate.now());
+        int[] loaded = {0};
+        jdbcTemplate.query("select id, cluster_id, description, created_at from feedback"
+                + " where created_at >= ? order by id", rs -> {
+                    int[] signature = hasher.signature(rs.getString("description"));
+                    if (signature != null) {
+                        index.add(rs.getTimestamp("created_at").toLocalDateTime().toLocalDate(), rs.getLong("id"),
+                                rs.getLong("cluster_id"), signature);
+                        loaded[0]++;
+                    }
+                }, Timestamp.valueOf(oldest.atStartOfDay()));
+        log.info("Indexed {} feedback descriptions since {} for duplicate detection", loaded[0], oldest);
+    }
+
+    /**
+     * Cluster of the closest near-duplicate of {@code feedback} saved in the window before it, or null when
+     * it has none and starts a cluster of its own.
+     */
+    public Long findCluster(Feedback feedback) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        int[] signature = hasher.signature(feedback.getDescription());
+        if (signature == null) {
+            return null;
+        }
+        LocalDate day = day(feedback);
+        DuplicateIndex.Match match = index.findBest(signature, oldestDay(day), day, properties.getSimilarity(),
+                feedback.getId() != null ? feedback.getId() : -1);
+        return match != null ? match.clusterId() : null;
+    }
+
+    /**
+     * Indexes saved feedback so later posts can match it, replacing whatever was indexed for it before.
+     */
+    public void register(Feedback feedback) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        int[] signature = hasher.signature(feedback.getDescription());
+        if (signature == null) {
+            index.remove(feedback.getId());
+        } else {
+            index.add(day(feedback), feedback.getId(), feedback.getClusterId(), signature);
+        }
+        index.retainFrom(oldestDay(LocalDate.now()));
+    }
+
+    public void remove(Long id) {
+        if (properties.isEnabled()) {
+            index.remove(id);
+        }
+    }
+
+    private LocalDate oldestDay(LocalDate day) {
+        return day.minusDays(Math.max(1, properties.getWindowDays()) - 1L);
+    }
+
+    private static LocalDate day(Feedback feedback) {
+        return feedback.getCreatedAt() != null ? feedback.getCreatedAt().toLocalDate() : LocalDate.now();
+    }
+}
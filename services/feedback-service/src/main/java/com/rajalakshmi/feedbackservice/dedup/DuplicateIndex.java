@@ -0,0 +1,174 @@
+package com.rajalakshmi.feedbackservice.dedup;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Locality-sensitive hash index of MinHash signatures, one partition per day so a whole day can be dropped
+ * once it leaves the matching window. Signatures are cut into bands; texts that agree on every row of some
+ * band become candidates and are then compared on the full signature.
+ * <p>
+ * Each day keeps its signatures in one flat int array and its buckets as arrays of entry positions, so
+ * an entry costs little more than its signature and its slot in the id lookup.
+ */
+public class DuplicateIndex {
+
+    // Id slot of an entry whose feedback was deleted or re-indexed
+    private static final long REMOVED = Long.MIN_VALUE;
+
+    private final int bands;
+    private final int rows;
+
+    private final NavigableMap<LocalDate, Day> days = new TreeMap<>();
+    private final Map<Long, Slot> slots = new HashMap<>();
+
+    // Stamp of the current findBest call; an entry already compared in it carries the same stamp
+    private int query;
+
+    public DuplicateIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+    }
+
+    public record Match(long id, long clusterId, double similarity) {
+    }
+
+    /**
+     * The most similar entry from {@code from} through {@code to} that reaches {@code minSimilarity}, ignoring
+     * entry {@code excludeId}; null when there is none.
+     */
+    public synchronized Match findBest(int[] signature, LocalDate from, LocalDate to, double minSimilarity,
+                                       long excludeId) {
+        Match best = null;
+        int stamp = nextQuery();
+        for (Day day : days.subMap(from, true, to, true).values()) {
+            for (int band = 0; band < bands; band++) {
+                int[] bucket = day.buckets.get(bucketKey(band, signature));
+                if (bucket == null) {
+                    continue;
+                }
+                for (int i = 1; i <= bucket[0]; i++) {
+                    int entry = bucket[i];
+                    // Texts that share several bands are candidates in each of them
+                    if (day.seen[entry] == stamp || day.ids[entry] == excludeId || day.ids[entry] == REMOVED) {
+                        continue;
+                    }
+                    day.seen[entry] = stamp;
+                    double similarity = day.similarity(entry, signature);
+                    if (similarity >= minSimilarity && (best == null || similarity > best.similarity())) {
+                        best = new Match(day.ids[entry], day.clusterIds[entry], similarity);
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Adds or replaces the entry for feedback {@code id}.
+     */
+    public synchronized void add(LocalDate date, long id, long clusterId, int[] signature) {
+        remove(id);
+        int entry = days.computeIfAbsent(date, d -> new Day()).add(id, clusterId, signature);
+        slots.put(id, new Slot(date, entry));
+    }
+
+    public synchronized void remove(long id) {
+        Slot slot = slots.remove(id);
+        if (slot != null) {
+            days.get(slot.day()).remove(slot.entry());
+        }
+    }
+
+    /**
+     * Drops every day before {@code oldest}.
+     */
+    public synchronized void retainFrom(LocalDate oldest) {
+        Map<LocalDate, Day> dropped = days.headMap(oldest, false);
+        for (Day day : dropped.values()) {
+            for (int entry = 0; entry < day.size; entry++) {
+                if (day.ids[entry] != REMOVED) {
+                    slots.remove(day.ids[entry]);
+                }
+            }
+        }
+        dropped.clear();
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    private int nextQuery() {
+        if (++query == 0) {
+            // Wrapped around: old stamps could collide with new ones
+            days.values().forEach(day -> Arrays.fill(day.seen, 0));
+            query = 1;
+        }
+        return query;
+    }
+
+    private long bucketKey(int band, int[] signature) {
+        int hash = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) {
+            hash = 31 * hash + signature[i];
+        }
+        return (long) band << 32 | (hash & 0xFFFFFFFFL);
+    }
+
+    private record Slot(LocalDate day, int entry) {
+    }
+
+    private final class Day {
+
+        private int size;
+        private long[] ids = new long[16];
+        private long[] clusterIds = new long[16];
+        private int[] seen = new int[16];
+        private int[] signatures = new int[16 * bands * rows];
+        private final Map<Long, int[]> buckets = new HashMap<>();
+
+        int add(long id, long clusterId, int[] signature) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                clusterIds = Arrays.copyOf(clusterIds, size * 2);
+                seen = Arrays.copyOf(seen, size * 2);
+                signatures = Arrays.copyOf(signatures, size * 2 * signature.length);
+            }
+            int entry = size++;
+            ids[entry] = id;
+            clusterIds[entry] = clusterId;
+            System.arraycopy(signature, 0, signatures, entry * signature.length, signature.length);
+            for (int band = 0; band < bands; band++) {
+                // First slot holds the number of entries in the bucket
+                int[] bucket = buckets.computeIfAbsent(bucketKey(band, signature), key -> new int[2]);
+                if (bucket[0] + 1 == bucket.length) {
+                    bucket = Arrays.copyOf(bucket, bucket.length * 2);
+                    buckets.put(bucketKey(band, signature), bucket);
+                }
+                bucket[++bucket[0]] = entry;
+            }
+            return entry;
+        }
+
+        // Leaves a tombstone; the slot is reclaimed when the whole day is dropped
+        void remove(int entry) {
+            ids[entry] = REMOVED;
+        }
+
+        double similarity(int entry, int[] signature) {
+            int offset = entry * signature.length;
+            int equal = 0;
+            for (int i = 0; i < signature.length; i++) {
+                if (signatures[offset + i] == signature[i]) {
+                    equal++;
+                }
+            }
+            return (double) equal / signature.length;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.rajalakshmi.feedbackservice.dedup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * MinHash signatures over character shingles of normalized text. Two signatures agree at any one position
+ * with probability equal to the Jaccard similarity of the texts' shingle sets.
+ */
+public final class MinHasher {
+
+    static final int SHINGLE_LENGTH = 5;
+
+    private final long[] seeds;
+
+    public MinHasher(int signatureLength, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        seeds = new long[signatureLength];
+        for (int i = 0; i < signatureLength; i++) {
+            seeds[i] = random.nextLong();
+        }
+    }
+
+    public int signatureLength() {
+        return seeds.length;
+    }
+
+    /**
+     * Signature of {@code text}, or null when there is nothing to compare (null, blank or punctuation only).
+     */
+    public int[] signature(String text) {
+        String normalized = normalize(text);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        // Texts shorter than one shingle become a single shingle of their own
+        int shingles = Math.max(1, normalized.length() - SHINGLE_LENGTH + 1);
+        for (int start = 0; start < shingles; start++) {
+            int end = Math.min(normalized.length(), start + SHINGLE_LENGTH);
+            int shingle = 0;
+            for (int i = start; i < end; i++) {
+                shingle = 31 * shingle + normalized.charAt(i);
+            }
+            for (int i = 0; i < seeds.length; i++) {
+                int hash = (int) (mix(shingle ^ seeds[i]) >>> 32);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    public static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    /**
+     * Lower case, letters and digits only, single spaces: copies that differ in case, punctuation or
+     * spacing shingle identically.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (space && !normalized.isEmpty()) {
+                    normalized.append(' ');
+                }
+                space = false;
+                normalized.appendCodePoint(Character.toLowerCase(codePoint));
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
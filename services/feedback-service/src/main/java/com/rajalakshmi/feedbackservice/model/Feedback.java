@@ -9,8 +9,11 @@ import java.time.LocalDateTime;
 @Table(name = "feedback")
 public class Feedback {
 
+    // Taken from the sequence before the insert, so a cluster's first feedback can store its own id below.
+    // feedback_id_seq is also the sequence behind the identity column of tables created by earlier versions.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "feedback_id")
+    @SequenceGenerator(name = "feedback_id", sequenceName = "feedback_id_seq", allocationSize = 1)
     private Long id;
 
     private Long userId;
@@ -21,6 +24,11 @@ public class Feedback {
     @Column(updatable = false)
     private LocalDateTime createdAt;
 
+    // Id of the first feedback with a near-identical description; persisted through the getter, which gives
+    // this feedback's own id when it starts a cluster
+    @Transient
+    private Long clusterId;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -73,4 +81,14 @@ public class Feedback {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    @Access(AccessType.PROPERTY)
+    @Column(name = "cluster_id")
+    public Long getClusterId() {
+        return clusterId != null ? clusterId : id;
+    }
+
+    public void setClusterId(Long clusterId) {
+        this.clusterId = clusterId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.rajalakshmi.feedbackservice.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One group of near-duplicate feedback: a representative description weighted by how often it was posted.
+ */
+public record FeedbackCluster(Long clusterId, long count, long users, double averageRating, String description,
+                              LocalDateTime firstSeen, LocalDateTime lastSeen) {
+}
@@ -0,0 +1,10 @@
+package com.rajalakshmi.feedbackservice.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-cluster totals over a time range; {@code firstId} is the earliest member in that range.
+ */
+public record ClusterCount(Long clusterId, Long count, Long users, Double averageRating, Long firstId,
+                           LocalDateTime firstSeen, LocalDateTime lastSeen) {
+}
@@ -0,0 +1,7 @@
+package com.rajalakshmi.feedbackservice.repository;
+
+/**
+ * A user who posted feedback in a cluster.
+ */
+public record ClusterMember(Long clusterId, Long userId) {
+}
@@ -0,0 +1,22 @@
+package com.rajalakshmi.feedbackservice.repository;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Queries that also read archived months. Archived feedback is returned detached and read-only.
+ */
+public interface FeedbackArchiveQueries {
+
+    /**
+     * Feedback created in [start, end), oldest first.
+     */
+    List<Feedback> findAllIncludingArchived(LocalDateTime start, LocalDateTime end);
+
+    List<Feedback> findAllByUserIdIncludingArchived(Long userId);
+
+    Optional<Feedback> findByIdIncludingArchived(Long id);
+}
@@ -0,0 +1,58 @@
+package com.rajalakshmi.feedbackservice.repository;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+import com.rajalakshmi.feedbackservice.storage.FeedbackArchive;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+class FeedbackArchiveQueriesImpl implements FeedbackArchiveQueries {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private FeedbackArchive archive;
+
+    @Override
+    public List<Feedback> findAllIncludingArchived(LocalDateTime start, LocalDateTime end) {
+        List<Feedback> rows = merge(archive.findAll(start, end),
+                entityManager.createQuery("select f from Feedback f where f.createdAt >= :start"
+                                + " and f.createdAt < :end", Feedback.class)
+                        .setParameter("start", start)
+                        .setParameter("end", end)
+                        .getResultList());
+        rows.sort(Comparator.comparing(Feedback::getCreatedAt).thenComparing(Feedback::getId));
+        return rows;
+    }
+
+    @Override
+    public List<Feedback> findAllByUserIdIncludingArchived(Long userId) {
+        return merge(archive.findAllByUserId(userId),
+                entityManager.createQuery("select f from Feedback f where f.userId = :userId", Feedback.class)
+                        .setParameter("userId", userId)
+                        .getResultList());
+    }
+
+    @Override
+    public Optional<Feedback> findByIdIncludingArchived(Long id) {
+        Feedback live = entityManager.find(Feedback.class, id);
+        return live != null ? Optional.of(live) : archive.findById(id);
+    }
+
+    // A month is briefly in both places while it is being archived; the table copy wins
+    private static List<Feedback> merge(List<Feedback> archived, List<Feedback> live) {
+        Map<Long, Feedback> byId = new LinkedHashMap<>();
+        archived.forEach(feedback -> byId.put(feedback.getId(), feedback));
+        live.forEach(feedback -> byId.put(feedback.getId(), feedback));
+        return new ArrayList<>(byId.values());
+    }
+}
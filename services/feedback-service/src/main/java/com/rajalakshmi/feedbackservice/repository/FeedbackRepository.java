@@ -1,12 +1,55 @@
 package com.rajalakshmi.feedbackservice.repository;
 
 import com.rajalakshmi.feedbackservice.model.Feedback;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
+public interface FeedbackRepository extends JpaRepository<Feedback, Long>, FeedbackArchiveQueries {
     List<Feedback> findAllByUserId(Long userId);
-}
\ No newline at end of file
+
+    @Query("select f from Feedback f where f.createdAt >= :start and f.createdAt < :end order by f.createdAt, f.id")
+    List<Feedback> findAllCreatedBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Descriptions created in [start, end), oldest first, cut to {@code maxChars} in the database.
+     * Must be consumed inside a transaction; rows are fetched from a cursor as the stream is read.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "200"))
+    @Query("select substring(f.description, 1, :maxChars) from Feedback f"
+            + " where f.createdAt >= :start and f.createdAt < :end and f.description <> ''"
+            + " order by f.createdAt, f.id")
+    Stream<String> streamDescriptions(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                      @Param("maxChars") int maxChars);
+
+    /**
+     * Near-duplicate clusters with feedback created in [start, end), largest first. The first feedback of a
+     * cluster carries its own id as cluster id.
+     */
+    @Query("select new com.rajalakshmi.feedbackservice.repository.ClusterCount(f.clusterId,"
+            + " count(f), count(distinct f.userId), avg(f.rating), min(f.id), min(f.createdAt), max(f.createdAt))"
+            + " from Feedback f where f.createdAt >= :start and f.createdAt < :end"
+            + " group by f.clusterId order by count(f) desc, min(f.id)")
+    List<ClusterCount> countClusters(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                     Pageable pageable);
+
+    /**
+     * Distinct posters of each given cluster among feedback created in [start, end).
+     */
+    @Query("select distinct new com.rajalakshmi.feedbackservice.repository.ClusterMember(f.clusterId, f.userId)"
+            + " from Feedback f where f.createdAt >= :start and f.createdAt < :end and f.clusterId in :clusterIds"
+            + " and f.userId is not null")
+    List<ClusterMember> findClusterMembers(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                           @Param("clusterIds") Collection<Long> clusterIds);
+}
@@ -0,0 +1,185 @@
+package com.rajalakshmi.feedbackservice.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajalakshmi.feedbackservice.repository.FeedbackRepository;
+import com.rajalakshmi.feedbackservice.storage.FeedbackArchive;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Feedback text prepared for analysis: descriptions only, each cut to a per-item limit and all of them
+ * together held to a character budget, day by day. Days that are over are cached since they no longer
+ * change; updates and deletes of old feedback evict their day.
+ */
+@Service
+public class FeedbackDigestService {
+
+    static final String TRUNCATION_MARKER = " [truncated]";
+
+    // Feedback saved just before midnight may commit just after it; wait this long before caching a day
+    private static final Duration CLOSING_GRACE = Duration.ofMinutes(5);
+
+    @Autowired
+    private FeedbackRepository feedbackRepository;
+
+    @Autowired
+    private FeedbackArchive feedbackArchive;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${feedback.digest.cache-size:100}")
+    private int cacheSize;
+
+    private TransactionTemplate readOnly;
+
+    // Guarded by itself; access order makes it an LRU
+    private final Map<DayKey, DayDigest> closedDays = new LinkedHashMap<>(16, 0.75f, true);
+
+    @PostConstruct
+    public void init() {
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Writes the digest of [from, to] as JSON to {@code out}, one day at a time. Archived months are
+     * read from their archive files when {@code includeArchived} is set and are empty otherwise.
+     */
+    public void writeDigest(LocalDate from, LocalDate to, int maxItemChars, int maxTotalChars,
+                            boolean includeArchived, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("from", from.toString());
+            json.writeStringField("to", to.toString());
+            json.writeNumberField("maxItemChars", maxItemChars);
+            json.writeNumberField("maxTotalChars", maxTotalChars);
+            json.writeArrayFieldStart("items");
+            int remaining = maxTotalChars;
+            int items = 0;
+            int truncated = 0;
+            boolean complete = true;
+            for (LocalDate day = from; !day.isAfter(to) && complete; day = day.plusDays(1)) {
+                DayDigest digest = day(day, maxItemChars, remaining, includeArchived);
+                for (String item : digest.items()) {
+                    if (item.length() > remaining) {
+                        complete = false;
+                        break;
+                    }
+                    json.writeString(item);
+                    remaining -= item.length();
+                    items++;
+                    if (item.endsWith(TRUNCATION_MARKER)) {
+                        truncated++;
+                    }
+                }
+                complete &= digest.complete();
+                json.flush();
+            }
+            json.writeEndArray();
+            json.writeNumberField("itemCount", items);
+            json.writeNumberField("truncatedItems", truncated);
+            json.writeNumberField("totalChars", maxTotalChars - remaining);
+            json.writeBooleanField("budgetExhausted", !complete);
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Drops the cached digest of a day whose feedback changed.
+     */
+    public void evict(LocalDate day) {
+        synchronized (closedDays) {
+            closedDays.keySet().removeIf(key -> key.day().equals(day));
+        }
+    }
+
+    private DayDigest day(LocalDate day, int maxItemChars, int budget, boolean includeArchived) {
+        if (!isClosed(day)) {
+            return load(day, maxItemChars, budget, false);
+        }
+        DayKey key = new DayKey(day, maxItemChars, includeArchived);
+        synchronized (closedDays) {
+            DayDigest cached = closedDays.get(key);
+            // A digest cut short at a larger budget still holds everything a smaller one needs
+            if (cached != null && (cached.complete() || cached.budget() >= budget)) {
+                return cached;
+            }
+        }
+        DayDigest loaded = load(day, maxItemChars, budget, includeArchived);
+        synchronized (closedDays) {
+            closedDays.put(key, loaded);
+            if (closedDays.size() > cacheSize) {
+                Iterator<DayKey> eldest = closedDays.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return loaded;
+    }
+
+    private DayDigest load(LocalDate day, int maxItemChars, int budget, boolean includeArchived) {
+        LocalDateTime start = day.atStartOfDay();
+        LocalDateTime end = day.plusDays(1).atStartOfDay();
+        if (includeArchived && feedbackArchive.isArchived(YearMonth.from(day))) {
+            return collect(feedbackArchive.descriptions(start, end).stream(), maxItemChars, budget);
+        }
+        // One character more than the limit tells truncated descriptions apart from ones that fit exactly
+        return readOnly.execute(status -> {
+            try (Stream<String> descriptions = feedbackRepository.streamDescriptions(start, end, maxItemChars + 1)) {
+                return collect(descriptions, maxItemChars, budget);
+            }
+        });
+    }
+
+    private static DayDigest collect(Stream<String> descriptions, int maxItemChars, int budget) {
+        List<String> items = new ArrayList<>();
+        int used = 0;
+        Iterator<String> rows = descriptions.iterator();
+        while (rows.hasNext()) {
+            String text = rows.next();
+            String item = text.length() > maxItemChars ? text.substring(0, maxItemChars) + TRUNCATION_MARKER : text;
+            if (used + item.length() > budget) {
+                return new DayDigest(List.copyOf(items), budget, false);
+            }
+            items.add(item);
+            used += item.length();
+        }
+        return new DayDigest(List.copyOf(items), budget, true);
+    }
+
+    private static boolean isClosed(LocalDate day) {
+        return !day.plusDays(1).atStartOfDay().plus(CLOSING_GRACE).isAfter(LocalDateTime.now());
+    }
+
+    private record DayKey(LocalDate day, int maxItemChars, boolean includeArchived) {
+    }
+
+    /**
+     * Items of one day in order; unless complete, the next item would have gone over {@code budget}.
+     */
+    private record DayDigest(List<String> items, int budget, boolean complete) {
+    }
+}
@@ -1,14 +1,31 @@
 package com.rajalakshmi.feedbackservice.service;
 
 
+import com.rajalakshmi.feedbackservice.dedup.DuplicateDetector;
 import com.rajalakshmi.feedbackservice.model.Feedback;
+import com.rajalakshmi.feedbackservice.model.FeedbackCluster;
+import com.rajalakshmi.feedbackservice.repository.ClusterCount;
+import com.rajalakshmi.feedbackservice.repository.ClusterMember;
 import com.rajalakshmi.feedbackservice.repository.FeedbackRepository;
+import com.rajalakshmi.feedbackservice.storage.FeedbackArchive;
+import com.rajalakshmi.feedbackservice.storage.FeedbackPartitions;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class FeedbackService {
@@ -16,20 +33,57 @@ public class FeedbackService {
     @Autowired
     private FeedbackRepository feedbackRepository;
 
+    @Autowired
+    private FeedbackDigestService feedbackDigestService;
+
+    @Autowired
+    private DuplicateDetector duplicateDetector;
+
+    @Autowired
+    private FeedbackArchive feedbackArchive;
+
+    @Autowired
+    private FeedbackPartitions feedbackPartitions;
+
     public Feedback saveFeedback(Feedback feedback) {
-        return feedbackRepository.save(feedback);
+        // Null when it is not a near-duplicate of anything recent; it is then saved with its own id as cluster id
+        feedback.setClusterId(duplicateDetector.findCluster(feedback));
+        Feedback saved = feedbackRepository.save(feedback);
+        duplicateDetector.register(saved);
+        return saved;
     }
 
     public List<Feedback> getAllFeedback() {
         return feedbackRepository.findAll();
     }
 
+    /**
+     * Feedback created from {@code from} through {@code to}, oldest first.
+     */
+    public List<Feedback> getAllFeedback(LocalDate from, LocalDate to, boolean includeArchived) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        return includeArchived
+                ? feedbackRepository.findAllIncludingArchived(start, end)
+                : feedbackRepository.findAllCreatedBetween(start, end);
+    }
+
     public Optional<Feedback> getFeedbackById(Long id) {
-        return feedbackRepository.findById(id);
+        return getFeedbackById(id, false);
+    }
+
+    public Optional<Feedback> getFeedbackById(Long id, boolean includeArchived) {
+        return includeArchived ? feedbackRepository.findByIdIncludingArchived(id) : feedbackRepository.findById(id);
     }
 
     public List<Feedback> getFeedbackByUserId(Long userId) {
-        return feedbackRepository.findAllByUserId(userId);
+        return getFeedbackByUserId(userId, false);
+    }
+
+    public List<Feedback> getFeedbackByUserId(Long userId, boolean includeArchived) {
+        return includeArchived
+                ? feedbackRepository.findAllByUserIdIncludingArchived(userId)
+                : feedbackRepository.findAllByUserId(userId);
     }
 
     // UPDATED METHOD: Removed currentUserId and currentUserRole parameters and the security check
@@ -42,9 +96,18 @@ public class FeedbackService {
         //     throw new UnauthorizedException("User not authorized to update this feedback");
         // }
 
+        boolean descriptionChanged = !Objects.equals(feedback.getDescription(), feedbackDetails.getDescription());
         feedback.setRating(feedbackDetails.getRating());
         feedback.setDescription(feedbackDetails.getDescription());
-        return feedbackRepository.save(feedback);
+        if (descriptionChanged) {
+            feedback.setClusterId(duplicateDetector.findCluster(feedback));
+        }
+        Feedback saved = feedbackRepository.save(feedback);
+        if (descriptionChanged) {
+            duplicateDetector.register(saved);
+        }
+        evictDigest(saved);
+        return saved;
     }
 
     // UPDATED METHOD: Removed currentUserId and currentUserRole parameters and the security check
@@ -57,5 +120,115 @@ public class FeedbackService {
         //     throw new UnauthorizedException("User not authorized to delete this feedback");
         // }
         feedbackRepository.delete(feedback);
+        duplicateDetector.remove(feedback.getId());
+        evictDigest(feedback);
+    }
+
+    /**
+     * Near-duplicate clusters of feedback created from {@code from} through {@code to}, largest first, each
+     * described by its earliest member in the range. Archived months in the range are only counted with
+     * {@code includeArchived}.
+     */
+    public List<FeedbackCluster> getClusters(LocalDate from, LocalDate to, int limit, boolean includeArchived) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        List<YearMonth> archivedMonths = includeArchived ? archivedMonths(start, end) : List.of();
+        List<ClusterCount> counts = archivedMonths.isEmpty()
+                ? feedbackRepository.countClusters(start, end, PageRequest.of(0, limit))
+                : countClustersIncludingArchived(start, end, limit, archivedMonths);
+        Map<Long, String> descriptions = new HashMap<>();
+        feedbackRepository.findAllById(counts.stream().map(ClusterCount::firstId).toList())
+                .forEach(feedback -> descriptions.put(feedback.getId(), feedback.getDescription()));
+        if (!archivedMonths.isEmpty()) {
+            for (ClusterCount count : counts) {
+                if (!descriptions.containsKey(count.firstId())) {
+                    feedbackArchive.findById(count.firstId())
+                            .ifPresent(feedback -> descriptions.put(feedback.getId(), feedback.getDescription()));
+                }
+            }
+        }
+        return counts.stream()
+                .map(count -> new FeedbackCluster(count.clusterId(), count.count(), count.users(),
+                        count.averageRating(), descriptions.get(count.firstId()), count.firstSeen(),
+                        count.lastSeen()))
+                .toList();
+    }
+
+    // Archived months overlapping [start, end). A month still in its partition is being archived right now and
+    // is counted from the table.
+    private List<YearMonth> archivedMonths(LocalDateTime start, LocalDateTime end) {
+        Set<YearMonth> live = feedbackPartitions.isActive() ? feedbackPartitions.months() : Set.of();
+        return feedbackArchive.archivedMonths().stream()
+                .filter(month -> !month.isBefore(YearMonth.from(start)))
+                .filter(month -> month.atDay(1).atStartOfDay().isBefore(end) && !live.contains(month))
+                .toList();
+    }
+
+    // A cluster can have members on both sides of the archive boundary, so every cluster in the table is counted
+    // before the largest are picked, and posters of such clusters are fetched to count each user once
+    private List<ClusterCount> countClustersIncludingArchived(LocalDateTime start, LocalDateTime end, int limit,
+                                                              List<YearMonth> archivedMonths) {
+        Map<Long, ClusterTotals> archived = new HashMap<>();
+        for (YearMonth month : archivedMonths) {
+            feedbackArchive.forEachClusterRow(month, start, end, (id, clusterId, userId, rating, createdAt) ->
+                    archived.computeIfAbsent(clusterId, key -> new ClusterTotals())
+                            .add(id, userId, rating, createdAt));
+        }
+        List<ClusterCount> live = feedbackRepository.countClusters(start, end, Pageable.unpaged());
+        List<Long> spanning = live.stream().map(ClusterCount::clusterId).filter(archived::containsKey).toList();
+        if (!spanning.isEmpty()) {
+            for (ClusterMember member : feedbackRepository.findClusterMembers(start, end, spanning)) {
+                archived.get(member.clusterId()).users.add(member.userId());
+            }
+        }
+        List<ClusterCount> counts = new ArrayList<>(live.size() + archived.size());
+        for (ClusterCount count : live) {
+            ClusterTotals totals = archived.remove(count.clusterId());
+            counts.add(totals != null ? totals.plus(count) : count);
+        }
+        archived.forEach((clusterId, totals) -> counts.add(totals.toCount(clusterId)));
+        counts.sort(Comparator.comparing(ClusterCount::count).reversed().thenComparing(ClusterCount::firstId));
+        return counts.subList(0, Math.min(limit, counts.size()));
+    }
+
+    private void evictDigest(Feedback feedback) {
+        if (feedback.getCreatedAt() != null) {
+            feedbackDigestService.evict(feedback.getCreatedAt().toLocalDate());
+        }
+    }
+
+    // Archived rows of one cluster; users holds every poster, including those still in the table once merged
+    private static final class ClusterTotals {
+
+        private final Set<Long> users = new HashSet<>();
+        private long count;
+        private long ratingSum;
+        private long firstId = Long.MAX_VALUE;
+        private LocalDateTime firstSeen;
+        private LocalDateTime lastSeen;
+
+        void add(long id, Long userId, int rating, LocalDateTime createdAt) {
+            count++;
+            ratingSum += rating;
+            if (userId != null) {
+                users.add(userId);
+            }
+            firstId = Math.min(firstId, id);
+            firstSeen = firstSeen == null || createdAt.isBefore(firstSeen) ? createdAt : firstSeen;
+            lastSeen = lastSeen == null || createdAt.isAfter(lastSeen) ? createdAt : lastSeen;
+        }
+
+        ClusterCount plus(ClusterCount live) {
+            long total = count + live.count();
+            return new ClusterCount(live.clusterId(), total, (long) users.size(),
+                    (ratingSum + live.averageRating() * live.count()) / total, Math.min(firstId, live.firstId()),
+                    firstSeen.isBefore(live.firstSeen()) ? firstSeen : live.firstSeen(),
+                    lastSeen.isAfter(live.lastSeen()) ? lastSeen : live.lastSeen());
+        }
+
+        ClusterCount toCount(Long clusterId) {
+            return new ClusterCount(clusterId, count, (long) users.size(), (double) ratingSum / count, firstId,
+                    firstSeen, lastSeen);
+        }
     }
 }
\ No newline at end of file
@@ -2,21 +2,37 @@ package com.rajalakshmi.feedbackservice.service;
 
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class FileStorageService {
 
+    // Only images are accepted, and the stored name's extension always comes from this table so a file is
+    // never served back under a type the uploader chose
+    private static final Map<String, ImageType> IMAGE_TYPES = Map.of(
+            "image/png", new ImageType(".png", new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'}),
+            "image/jpeg", new ImageType(".jpg", new byte[]{(byte) 0xff, (byte) 0xd8, (byte) 0xff}),
+            "image/gif", new ImageType(".gif", new byte[]{'G', 'I', 'F', '8'}));
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            ".png", "image/png", ".jpg", "image/jpeg", ".jpeg", "image/jpeg", ".gif", "image/gif");
+
     private final Path fileStorageLocation;
 
     public FileStorageService() {
@@ -28,19 +44,33 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Stores an uploaded image under a random name. The declared content type, the original file
+     * extension and the file's leading bytes must all agree on one of the accepted image types.
+     *
+     * @throws IllegalArgumentException if the file is not an accepted image
+     */
     public String storeFile(MultipartFile file) {
-        String originalFileName = StringUtils.cleanPath(file.getOriginalFilename());
-        String fileExtension = "";
-        try {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
-        } catch(Exception e) {
-            fileExtension = "";
+        String contentType = file.getContentType() == null ? "" : file.getContentType().toLowerCase(Locale.ROOT);
+        ImageType type = IMAGE_TYPES.get(contentType);
+        String originalFileName = StringUtils.cleanPath(String.valueOf(file.getOriginalFilename()));
+        int dot = originalFileName.lastIndexOf('.');
+        String extension = dot < 0 ? "" : originalFileName.substring(dot).toLowerCase(Locale.ROOT);
+        if (type == null || !contentType.equals(EXTENSIONS.get(extension))) {
+            throw new IllegalArgumentException("Only PNG, JPEG and GIF images can be uploaded");
         }
-        String fileName = UUID.randomUUID().toString() + fileExtension;
+        String fileName = UUID.randomUUID() + type.extension();
 
         try {
+            try (InputStream in = file.getInputStream()) {
+                if (!Arrays.equals(in.readNBytes(type.signature().length), type.signature())) {
+                    throw new IllegalArgumentException("File content is not a " + contentType + " image");
+                }
+            }
             Path targetLocation = this.fileStorageLocation.resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream in = file.getInputStream()) {
+                Files.copy(in, targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            }
             return fileName;
         } catch (IOException ex) {
             throw new RuntimeException("Could not store file " + fileName + ". Please try again!", ex);
@@ -50,6 +80,9 @@ public class FileStorageService {
     public Resource loadFileAsResource(String fileName) {
         try {
             Path filePath = this.fileStorageLocation.resolve(fileName).normalize();
+            if (!filePath.getParent().equals(this.fileStorageLocation)) {
+                throw new RuntimeException("File not found " + fileName);
+            }
             Resource resource = new UrlResource(filePath.toUri());
             if (resource.exists()) {
                 return resource;
@@ -60,4 +93,17 @@ public class FileStorageService {
             throw new RuntimeException("File not found " + fileName, ex);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Content type to serve a stored file with, decided by its extension alone; empty for files that are
+     * not an accepted image, such as ones stored before uploads were restricted.
+     */
+    public Optional<MediaType> contentType(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String type = dot < 0 ? null : EXTENSIONS.get(fileName.substring(dot).toLowerCase(Locale.ROOT));
+        return Optional.ofNullable(type).map(MediaType::parseMediaType);
+    }
+
+    private record ImageType(String extension, byte[] signature) {
+    }
+}
@@ -0,0 +1,399 @@
+package com.rajalakshmi.feedbackservice.storage;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One month of feedback in a compact columnar file. Each column is encoded on its own (ids and timestamps
+ * as varint deltas, strings length-prefixed) and deflated separately, so a lookup by user or a digest only
+ * inflates the columns it reads.
+ * <p>
+ * Layout: magic, row count, id range, then a directory of (name, compressed length, raw length) per
+ * column, followed by the compressed column blocks in directory order.
+ */
+public final class ArchiveFile {
+
+    private static final int MAGIC = 0x46424131; // "FBA1"
+
+    static final String ID = "id";
+    static final String USER_ID = "user_id";
+    static final String RATING = "rating";
+    static final String DESCRIPTION = "description";
+    static final String IMAGE_URL = "image_url";
+    static final String CREATED_AT = "created_at";
+    static final String CLUSTER_ID = "cluster_id";
+
+    private final byte[] data;
+    private final int rowCount;
+    private final long minId;
+    private final long maxId;
+    private final Map<String, Block> columns;
+
+    private ArchiveFile(byte[] data, int rowCount, long minId, long maxId, Map<String, Block> columns) {
+        this.data = data;
+        this.rowCount = rowCount;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.columns = columns;
+    }
+
+    /**
+     * Writes {@code rows}, sorted by id, to {@code file}. The file only appears once it is complete and
+     * synced, so a crash never leaves a partial archive behind under the final name.
+     */
+    public static void write(Path file, List<Feedback> rows) throws IOException {
+        Encoder ids = new Encoder();
+        Encoder userIds = new Encoder();
+        Encoder ratings = new Encoder();
+        Encoder descriptions = new Encoder();
+        Encoder imageUrls = new Encoder();
+        Encoder createdAts = new Encoder();
+        Encoder clusterIds = new Encoder();
+        long previousId = 0;
+        long previousMicros = 0;
+        for (Feedback row : rows) {
+            ids.signed(row.getId() - previousId);
+            previousId = row.getId();
+            userIds.nullableLong(row.getUserId());
+            ratings.signed(row.getRating());
+            descriptions.nullableString(row.getDescription());
+            imageUrls.nullableString(row.getImageUrl());
+            long micros = toMicros(row.getCreatedAt());
+            createdAts.signed(micros - previousMicros);
+            previousMicros = micros;
+            clusterIds.nullableLong(row.getClusterId());
+        }
+
+        Map<String, Encoder> encoded = new LinkedHashMap<>();
+        encoded.put(ID, ids);
+        encoded.put(USER_ID, userIds);
+        encoded.put(RATING, ratings);
+        encoded.put(DESCRIPTION, descriptions);
+        encoded.put(IMAGE_URL, imageUrls);
+        encoded.put(CREATED_AT, createdAts);
+        encoded.put(CLUSTER_ID, clusterIds);
+
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(header);
+        out.writeInt(MAGIC);
+        out.writeInt(rows.size());
+        out.writeLong(rows.isEmpty() ? 0 : rows.get(0).getId());
+        out.writeLong(rows.isEmpty() ? 0 : rows.get(rows.size() - 1).getId());
+        out.writeInt(encoded.size());
+        List<byte[]> blocks = new ArrayList<>();
+        for (Map.Entry<String, Encoder> column : encoded.entrySet()) {
+            byte[] raw = column.getValue().toByteArray();
+            byte[] compressed = deflate(raw);
+            out.writeUTF(column.getKey());
+            out.writeInt(compressed.length);
+            out.writeInt(raw.length);
+            blocks.add(compressed);
+        }
+        out.flush();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(header.toByteArray()));
+            for (byte[] block : blocks) {
+                channel.write(ByteBuffer.wrap(block));
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static ArchiveFile read(Path file) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (in.readInt() != MAGIC) {
+            throw new IOException(file + " is not a feedback archive");
+        }
+        int rowCount = in.readInt();
+        long minId = in.readLong();
+        long maxId = in.readLong();
+        int columnCount = in.readInt();
+        List<String> names = new ArrayList<>();
+        List<int[]> lengths = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            names.add(in.readUTF());
+            lengths.add(new int[]{in.readInt(), in.readInt()});
+        }
+        int offset = data.length - in.available();
+        Map<String, Block> columns = new LinkedHashMap<>();
+        for (int i = 0; i < columnCount; i++) {
+            int[] length = lengths.get(i);
+            columns.put(names.get(i), new Block(offset, length[0], length[1]));
+            offset += length[0];
+        }
+        if (offset != data.length) {
+            throw new IOException(file + " is truncated or corrupt");
+        }
+        return new ArchiveFile(data, rowCount, minId, maxId, columns);
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public boolean mayContainId(long id) {
+        return rowCount > 0 && id >= minId && id <= maxId;
+    }
+
+    public long[] ids() throws IOException {
+        Decoder decoder = column(ID);
+        long[] ids = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previous += decoder.signed();
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    public Long[] userIds() throws IOException {
+        Decoder decoder = column(USER_ID);
+        Long[] userIds = new Long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            userIds[i] = decoder.nullableLong();
+        }
+        return userIds;
+    }
+
+    public int[] ratings() throws IOException {
+        Decoder decoder = column(RATING);
+        int[] ratings = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            ratings[i] = (int) decoder.signed();
+        }
+        return ratings;
+    }
+
+    public String[] descriptions() throws IOException {
+        return strings(DESCRIPTION);
+    }
+
+    public String[] imageUrls() throws IOException {
+        return strings(IMAGE_URL);
+    }
+
+    public LocalDateTime[] createdAts() throws IOException {
+        Decoder decoder = column(CREATED_AT);
+        LocalDateTime[] createdAts = new LocalDateTime[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previous += decoder.signed();
+            createdAts[i] = fromMicros(previous);
+        }
+        return createdAts;
+    }
+
+    /**
+     * Near-duplicate cluster of each row; all null in archives written before clustering existed.
+     */
+    public Long[] clusterIds() throws IOException {
+        Long[] clusterIds = new Long[rowCount];
+        if (!columns.containsKey(CLUSTER_ID)) {
+            return clusterIds;
+        }
+        Decoder decoder = column(CLUSTER_ID);
+        for (int i = 0; i < rowCount; i++) {
+            clusterIds[i] = decoder.nullableLong();
+        }
+        return clusterIds;
+    }
+
+    /**
+     * Rows at the given positions, or every row when {@code positions} is null.
+     */
+    public List<Feedback> rows(int[] positions) throws IOException {
+        long[] ids = ids();
+        Long[] userIds = userIds();
+        int[] ratings = ratings();
+        String[] descriptions = descriptions();
+        String[] imageUrls = imageUrls();
+        LocalDateTime[] createdAts = createdAts();
+        Long[] clusterIds = clusterIds();
+        int count = positions == null ? rowCount : positions.length;
+        List<Feedback> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int row = positions == null ? i : positions[i];
+            Feedback feedback = new Feedback();
+            feedback.setId(ids[row]);
+            feedback.setUserId(userIds[row]);
+            feedback.setRating(ratings[row]);
+            feedback.setDescription(descriptions[row]);
+            feedback.setImageUrl(imageUrls[row]);
+            feedback.setCreatedAt(createdAts[row]);
+            feedback.setClusterId(clusterIds[row]);
+            rows.add(feedback);
+        }
+        return rows;
+    }
+
+    private String[] strings(String name) throws IOException {
+        Decoder decoder = column(name);
+        String[] values = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            values[i] = decoder.nullableString();
+        }
+        return values;
+    }
+
+    private Decoder column(String name) throws IOException {
+        Block block = columns.get(name);
+        if (block == null) {
+            throw new IOException("Archive has no column " + name);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, block.offset(), block.compressedLength());
+            byte[] raw = new byte[block.rawLength()];
+            int inflated = 0;
+            while (inflated < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, inflated, raw.length - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != raw.length) {
+                throw new IOException("Column " + name + " is corrupt");
+            }
+            return new Decoder(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Column " + name + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private record Block(int offset, int compressedLength, int rawLength) {
+    }
+
+    private static final class Encoder extends ByteArrayOutputStream {
+
+        void unsigned(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void signed(long value) {
+            unsigned((value << 1) ^ (value >> 63));
+        }
+
+        // Zero marks null, so present values are shifted up by one
+        void nullableLong(Long value) {
+            if (value == null) {
+                unsigned(0);
+            } else {
+                unsigned(((value << 1) ^ (value >> 63)) + 1);
+            }
+        }
+
+        void nullableString(String value) {
+            if (value == null) {
+                unsigned(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            unsigned(bytes.length + 1L);
+            writeBytes(bytes);
+        }
+    }
+
+    private static final class Decoder {
+
+        private final byte[] data;
+        private int position;
+
+        Decoder(byte[] data) {
+            this.data = data;
+        }
+
+        long unsigned() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long signed() {
+            long value = unsigned();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        Long nullableLong() {
+            long value = unsigned();
+            if (value == 0) {
+                return null;
+            }
+            value -= 1;
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String nullableString() {
+            long length = unsigned();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(data, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.rajalakshmi.feedbackservice.storage;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Archived months of feedback, one {@link ArchiveFile} per month in the archive directory. Archives never
+ * change once written, so the most recently read months are kept parsed; only their compressed bytes stay in
+ * memory.
+ */
+@Component
+public class FeedbackArchive {
+
+    private static final String PREFIX = "feedback-";
+    private static final String SUFFIX = ".fba";
+
+    @Autowired
+    private StorageProperties properties;
+
+    // Guarded by itself; access order makes it an LRU
+    private final Map<YearMonth, ArchiveFile> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SortedSet<YearMonth> archivedMonths() {
+        SortedSet<YearMonth> months = new TreeSet<>();
+        Path directory = properties.getArchive().getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return months;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(PREFIX) && name.endsWith(SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            months.add(YearMonth.parse(name.substring(PREFIX.length(),
+                                    name.length() - SUFFIX.length())));
+                        } catch (DateTimeParseException e) {
+                            // Not one of ours
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return months;
+    }
+
+    public boolean isArchived(YearMonth month) {
+        return Files.isRegularFile(file(month));
+    }
+
+    public void write(YearMonth month, List<Feedback> rows) throws IOException {
+        Files.createDirectories(properties.getArchive().getDirectory());
+        // Only a failed run that is being retried rewrites a month
+        synchronized (cache) {
+            cache.remove(month);
+        }
+        ArchiveFile.write(file(month), rows);
+    }
+
+    public ArchiveFile read(YearMonth month) throws IOException {
+        synchronized (cache) {
+            ArchiveFile cached = cache.get(month);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        ArchiveFile loaded = ArchiveFile.read(file(month));
+        synchronized (cache) {
+            cache.put(month, loaded);
+            if (cache.size() > properties.getArchive().getCacheSize()) {
+                Iterator<YearMonth> eldest = cache.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Rows created in [start, end). Only the archived months overlapping the range are read.
+     */
+    public List<Feedback> findAll(LocalDateTime start, LocalDateTime end) {
+        List<Feedback> rows = new ArrayList<>();
+        YearMonth first = YearMonth.from(start);
+        YearMonth last = YearMonth.from(end.minusNanos(1));
+        for (YearMonth month : archivedMonths().subSet(first, last.plusMonths(1))) {
+            rows.addAll(rows(month, archive -> {
+                LocalDateTime[] createdAts = archive.createdAts();
+                return IntStream.range(0, createdAts.length)
+                        .filter(i -> !createdAts[i].isBefore(start) && createdAts[i].isBefore(end))
+                        .toArray();
+            }));
+        }
+        return rows;
+    }
+
+    public List<Feedback> findAllByUserId(Long userId) {
+        List<Feedback> rows = new ArrayList<>();
+        for (YearMonth month : archivedMonths()) {
+            rows.addAll(rows(month, archive -> {
+                Long[] userIds = archive.userIds();
+                return IntStream.range(0, userIds.length).filter(i -> userId.equals(userIds[i])).toArray();
+            }));
+        }
+        return rows;
+    }
+
+    public Optional<Feedback> findById(Long id) {
+        for (YearMonth month : archivedMonths()) {
+            List<Feedback> rows = rows(month, archive -> {
+                if (!archive.mayContainId(id)) {
+                    return new int[0];
+                }
+                long[] ids = archive.ids();
+                return IntStream.range(0, ids.length).filter(i -> ids[i] == id).toArray();
+            });
+            if (!rows.isEmpty()) {
+                return Optional.of(rows.get(0));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Non-empty descriptions created in [start, end), which must lie within one archived month, oldest
+     * first. Only two columns are inflated.
+     */
+    public List<String> descriptions(LocalDateTime start, LocalDateTime end) {
+        try {
+            ArchiveFile archive = read(YearMonth.from(start));
+            LocalDateTime[] createdAts = archive.createdAts();
+            String[] descriptions = archive.descriptions();
+            return IntStream.range(0, archive.rowCount())
+                    .filter(i -> !createdAts[i].isBefore(start) && createdAts[i].isBefore(end))
+                    .filter(i -> descriptions[i] != null && !descriptions[i].isEmpty())
+                    .boxed()
+                    // Rows are stored by id; order like the database query does
+                    .sorted(Comparator.comparing((Integer i) -> createdAts[i]))
+                    .map(i -> descriptions[i])
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Passes each row of an archived month created in [start, end) to {@code visitor}, with only the columns
+     * cluster totals need. Rows archived before every feedback carried a cluster id are their own cluster.
+     */
+    public void forEachClusterRow(YearMonth month, LocalDateTime start, LocalDateTime end, ClusterRowVisitor visitor) {
+        try {
+            ArchiveFile archive = read(month);
+            LocalDateTime[] createdAts = archive.createdAts();
+            long[] ids = archive.ids();
+            Long[] clusterIds = archive.clusterIds();
+            Long[] userIds = archive.userIds();
+            int[] ratings = archive.ratings();
+            for (int i = 0; i < archive.rowCount(); i++) {
+                if (!createdAts[i].isBefore(start) && createdAts[i].isBefore(end)) {
+                    visitor.visit(ids[i], clusterIds[i] != null ? clusterIds[i] : ids[i], userIds[i], ratings[i],
+                            createdAts[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Feedback> rows(YearMonth month, RowSelector selector) {
+        try {
+            ArchiveFile archive = read(month);
+            int[] positions = selector.select(archive);
+            if (positions != null && positions.length == 0) {
+                return List.of();
+            }
+            return archive.rows(positions);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path file(YearMonth month) {
+        return properties.getArchive().getDirectory().resolve(PREFIX + month + SUFFIX);
+    }
+
+    public interface ClusterRowVisitor {
+
+        void visit(long id, long clusterId, Long userId, int rating, LocalDateTime createdAt);
+    }
+
+    private interface RowSelector {
+
+        // Positions of the wanted rows, or null for all of them
+        int[] select(ArchiveFile archive) throws IOException;
+    }
+}
@@ -0,0 +1,147 @@
+package com.rajalakshmi.feedbackservice.storage;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+import com.rajalakshmi.feedbackservice.service.FeedbackDigestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Nightly partition upkeep: creates upcoming months and moves months older than the configured age into
+ * archive files. Each month is exported, written, synced and read back, then detached and dropped, all
+ * inside one transaction that keeps writers out of the partition.
+ * <p>
+ * Every instance runs the schedule; a transaction-scoped advisory lock lets one of them archive while the
+ * others skip the run. The archive directory must therefore be shared by all instances.
+ */
+@Component
+public class FeedbackArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedbackArchiver.class);
+
+    // Key of the PostgreSQL advisory lock held while a month is archived ("FBARCHIV")
+    private static final long ARCHIVE_LOCK = 0x4642415243484956L;
+
+    @Autowired
+    private StorageProperties properties;
+
+    @Autowired
+    private FeedbackPartitions partitions;
+
+    @Autowired
+    private FeedbackArchive archive;
+
+    @Autowired
+    private FeedbackDigestService digestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Scheduled(cron = "${feedback.storage.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        if (!partitions.isActive()) {
+            return;
+        }
+        partitions.createAhead();
+        if (properties.getArchive().isEnabled()) {
+            archiveOldMonths();
+        }
+    }
+
+    /**
+     * Archives every partition whose month ended before the configured age; returns how many were moved.
+     */
+    public int archiveOldMonths() {
+        LocalDate cutoff = LocalDate.now().minus(properties.getArchive().getAfter());
+        int archived = 0;
+        for (YearMonth month : partitions.months()) {
+            if (!month.atEndOfMonth().isBefore(cutoff)) {
+                break;
+            }
+            try {
+                Outcome outcome = archive(month);
+                if (outcome == Outcome.BUSY) {
+                    log.info("Another instance is archiving feedback; skipping this run");
+                    break;
+                }
+                if (outcome == Outcome.ARCHIVED) {
+                    archived++;
+                }
+                // Cached digests of the month were built from the rows that just left the database
+                for (LocalDate day = month.atDay(1); !day.isAfter(month.atEndOfMonth()); day = day.plusDays(1)) {
+                    digestService.evict(day);
+                }
+            } catch (IOException | RuntimeException e) {
+                // The partition stays in place and is retried on the next run
+                log.error("Could not archive feedback for {}", month, e);
+            }
+        }
+        return archived;
+    }
+
+    private Outcome archive(YearMonth month) throws IOException {
+        try {
+            return new TransactionTemplate(transactionManager).execute(status -> {
+                try {
+                    return archiveLocked(month);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Outcome archiveLocked(YearMonth month) throws IOException {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?)", Boolean.class,
+                ARCHIVE_LOCK))) {
+            return Outcome.BUSY;
+        }
+        // The instance that held the lock before us may have archived this month already
+        if (!partitions.months().contains(month)) {
+            return Outcome.ALREADY_ARCHIVED;
+        }
+        String partition = partitions.partitionName(month);
+        // Late updates to the month wait until it is archived (and then find it gone) instead of being lost
+        jdbcTemplate.execute("lock table " + partition + " in exclusive mode");
+        List<Feedback> rows = jdbcTemplate.query("select id, user_id, rating, description, image_url, created_at,"
+                + " cluster_id from " + partition + " order by id", (rs, rowNum) -> {
+                    Feedback feedback = new Feedback();
+                    feedback.setId(rs.getLong("id"));
+                    feedback.setUserId(rs.getObject("user_id", Long.class));
+                    feedback.setRating(rs.getInt("rating"));
+                    feedback.setDescription(rs.getString("description"));
+                    feedback.setImageUrl(rs.getString("image_url"));
+                    feedback.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+                    feedback.setClusterId(rs.getObject("cluster_id", Long.class));
+                    return feedback;
+                });
+        archive.write(month, rows);
+        int written = archive.read(month).rowCount();
+        if (written != rows.size()) {
+            throw new IOException("Archive of " + month + " holds " + written + " rows, expected " + rows.size());
+        }
+        partitions.drop(month);
+        log.info("Archived {} feedback rows of {} and dropped {}", rows.size(), month, partition);
+        return Outcome.ARCHIVED;
+    }
+
+    private enum Outcome {
+        ARCHIVED, ALREADY_ARCHIVED, BUSY
+    }
+}
@@ -0,0 +1,165 @@
+package com.rajalakshmi.feedbackservice.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps {@code feedback} range-partitioned by month on created_at, with one partition named
+ * {@code feedback_pYYYYMM} per month. Hibernate creates the plain table on a fresh database; it is
+ * converted here in a single transaction, after which Hibernate sees it as a partitioned table.
+ */
+@Component
+public class FeedbackPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(FeedbackPartitions.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("feedback_p(\\d{4})(\\d{2})");
+
+    @Autowired
+    private StorageProperties properties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Only here so the schema exists before it is converted
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private volatile boolean active;
+
+    @PostConstruct
+    public void init() {
+        if (!properties.isPartitioned()) {
+            return;
+        }
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) {
+            log.warn("Partitioned feedback storage needs PostgreSQL, not {}; using a plain table", database);
+            return;
+        }
+        if (!isPartitioned()) {
+            convert();
+        }
+        active = true;
+        createAhead();
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Creates the partitions from the current month up to {@code monthsAhead} months from now.
+     */
+    public void createAhead() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= properties.getMonthsAhead(); i++) {
+            create(current.plusMonths(i));
+        }
+    }
+
+    public SortedSet<YearMonth> months() {
+        List<String> names = jdbcTemplate.queryForList("""
+                select child.relname from pg_inherits
+                join pg_class parent on parent.oid = pg_inherits.inhparent
+                join pg_class child on child.oid = pg_inherits.inhrelid
+                where parent.relname = 'feedback' and pg_table_is_visible(parent.oid)
+                """, String.class);
+        SortedSet<YearMonth> months = new TreeSet<>();
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.matches()) {
+                months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+            }
+        }
+        return months;
+    }
+
+    public String partitionName(YearMonth month) {
+        return "feedback_p%04d%02d".formatted(month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Detaches and drops a month's partition. Its rows must already be safely archived.
+     */
+    public void drop(YearMonth month) {
+        String partition = partitionName(month);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("alter table feedback detach partition " + partition);
+            jdbcTemplate.execute("drop table " + partition);
+        });
+    }
+
+    private void create(YearMonth month) {
+        jdbcTemplate.execute("create table if not exists %s partition of feedback for values from ('%s') to ('%s')"
+                .formatted(partitionName(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+    }
+
+    private boolean isPartitioned() {
+        String kind = jdbcTemplate.queryForObject(
+                "select relkind::text from pg_class where relname = 'feedback' and pg_table_is_visible(oid)",
+                String.class);
+        return "p".equals(kind);
+    }
+
+    private void convert() {
+        log.info("Converting feedback to a table partitioned by month");
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("lock table feedback in access exclusive mode");
+            jdbcTemplate.execute("alter table feedback rename to feedback_unpartitioned");
+            // Identity columns cannot be declared on partitioned tables before PostgreSQL 17. Dropping the old
+            // identity also drops its feedback_id_seq, which is recreated free of the old table and set below.
+            jdbcTemplate.execute("alter table feedback_unpartitioned alter column id drop identity if exists");
+            jdbcTemplate.execute("create sequence if not exists feedback_id_seq");
+            jdbcTemplate.execute("create table feedback (like feedback_unpartitioned including defaults)"
+                    + " partition by range (created_at)");
+            jdbcTemplate.execute("alter table feedback alter column id set default nextval('feedback_id_seq')");
+            jdbcTemplate.execute("alter sequence feedback_id_seq owned by feedback.id");
+            int undated = jdbcTemplate.update("update feedback_unpartitioned set created_at = now()"
+                    + " where created_at is null");
+            if (undated > 0) {
+                log.warn("{} feedback rows had no created_at and were dated now", undated);
+            }
+            jdbcTemplate.execute("alter table feedback alter column created_at set not null");
+            jdbcTemplate.execute("alter table feedback add primary key (id, created_at)");
+            jdbcTemplate.execute("create index feedback_created_at_idx on feedback (created_at)");
+            jdbcTemplate.execute("create index feedback_user_id_idx on feedback (user_id)");
+
+            Timestamp oldest = jdbcTemplate.queryForObject("select min(created_at) from feedback_unpartitioned",
+                    Timestamp.class);
+            YearMonth month = YearMonth.from(Objects.requireNonNullElseGet(oldest,
+                    () -> Timestamp.valueOf(LocalDateTime.now())).toLocalDateTime());
+            for (; !month.isAfter(YearMonth.now()); month = month.plusMonths(1)) {
+                create(month);
+            }
+            createAhead();
+            int moved = jdbcTemplate.update("insert into feedback select * from feedback_unpartitioned");
+            jdbcTemplate.execute("select setval('feedback_id_seq',"
+                    + " coalesce((select max(id) from feedback), 0) + 1, false)");
+            jdbcTemplate.execute("drop table feedback_unpartitioned");
+            log.info("Moved {} feedback rows into monthly partitions", moved);
+        });
+    }
+}
@@ -0,0 +1,86 @@
+package com.rajalakshmi.feedbackservice.storage;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Period;
+
+@ConfigurationProperties(prefix = "feedback.storage")
+public class StorageProperties {
+
+    // Monthly range partitions on created_at; PostgreSQL only. An existing table is converted on startup.
+    private boolean partitioned = false;
+
+    // Partitions are created this many months ahead of the current one
+    private int monthsAhead = 2;
+
+    private final Archive archive = new Archive();
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public void setPartitioned(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+
+    public int getMonthsAhead() {
+        return monthsAhead;
+    }
+
+    public void setMonthsAhead(int monthsAhead) {
+        this.monthsAhead = monthsAhead;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public static class Archive {
+
+        // Moving partitions to archive files needs partitioned storage; reading archives does not
+        private boolean enabled = false;
+
+        // Months that ended longer ago than this are archived
+        private Period after = Period.ofMonths(12);
+
+        // Must be shared by every instance (e.g. a mounted volume): whichever instance archives a month, all
+        // of them read it from here
+        private Path directory = Path.of("archive");
+
+        // Archived months kept in memory, least recently read dropped first
+        private int cacheSize = 12;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Period getAfter() {
+            return after;
+        }
+
+        public void setAfter(Period after) {
+            this.after = after;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public int getCacheSize() {
+            return cacheSize;
+        }
+
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.rajalakshmi.feedbackservice.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuplicateIndexTests {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 14);
+
+    private final MinHasher hasher = new MinHasher(128, 42);
+    private final DuplicateIndex index = new DuplicateIndex(32, 4);
+
+    @Test
+    void copiesDifferingInCaseAndPunctuationAreIdentical() {
+        int[] original = hasher.signature("The sambar was cold and too salty!");
+        int[] copy = hasher.signature("the SAMBAR was cold,   and too salty");
+
+        assertThat(MinHasher.similarity(original, copy)).isEqualTo(1.0);
+        assertThat(hasher.signature(" ?! ")).isNull();
+    }
+
+    @Test
+    void nearDuplicatesJoinTheClusterOfTheirClosestMatch() {
+        index.add(DAY, 1, 1, hasher.signature("The sambar was cold and too salty at dinner today"));
+        index.add(DAY, 2, 2, hasher.signature("Please add more fruit to the breakfast menu"));
+
+        DuplicateIndex.Match match = index.findBest(
+                hasher.signature("the sambar was cold and way too salty at dinner today"), DAY, DAY, 0.7, -1);
+
+        assertThat(match).isNotNull();
+        assertThat(match.clusterId()).isEqualTo(1);
+        assertThat(index.findBest(hasher.signature("Mess hall floor is slippery near the sink"),
+                DAY, DAY, 0.7, -1)).isNull();
+    }
+
+    @Test
+    void onlyDaysInsideTheWindowAreSearched() {
+        int[] signature = hasher.signature("Water cooler on the second floor is broken");
+        index.add(DAY.minusDays(10), 1, 1, signature);
+        index.add(DAY, 2, 1, signature);
+
+        assertThat(index.findBest(signature, DAY.minusDays(6), DAY, 0.7, 2)).isNull();
+        assertThat(index.findBest(signature, DAY.minusDays(10), DAY, 0.7, 2).id()).isEqualTo(1);
+
+        index.retainFrom(DAY.minusDays(6));
+
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removedAndReplacedEntriesNoLongerMatch() {
+        index.add(DAY, 1, 1, hasher.signature("Chapati was undercooked again"));
+        index.add(DAY, 1, 1, hasher.signature("Rice had small stones in it"));
+        index.add(DAY, 2, 2, hasher.signature("Curd was sour this morning"));
+        index.remove(2);
+
+        assertThat(index.findBest(hasher.signature("Chapati was undercooked again"), DAY, DAY, 0.7, -1)).isNull();
+        assertThat(index.findBest(hasher.signature("Curd was sour this morning"), DAY, DAY, 0.7, -1)).isNull();
+        assertThat(index.findBest(hasher.signature("Rice had small stones in it"), DAY, DAY, 0.7, -1).id())
+                .isEqualTo(1);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void reAddingOnAnotherDayMovesTheEntry() {
+        int[] signature = hasher.signature("Tea machine has been out of order since Monday");
+        index.add(DAY.minusDays(3), 1, 1, signature);
+        index.add(DAY, 1, 1, signature);
+
+        assertThat(index.findBest(signature, DAY.minusDays(3), DAY.minusDays(1), 0.7, -1)).isNull();
+        assertThat(index.findBest(signature, DAY, DAY, 0.7, -1).id()).isEqualTo(1);
+
+        index.retainFrom(DAY);
+        index.remove(1);
+
+        assertThat(index.size()).isZero();
+    }
+}
@@ -0,0 +1,114 @@
+package com.rajalakshmi.feedbackservice.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rajalakshmi.feedbackservice.repository.FeedbackRepository;
+import com.rajalakshmi.feedbackservice.storage.FeedbackArchive;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeedbackDigestServiceTests {
+
+    private static final LocalDate CLOSED_DAY = LocalDate.now().minusDays(3);
+
+    @Mock
+    private FeedbackRepository feedbackRepository;
+
+    @Mock
+    private FeedbackArchive feedbackArchive;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @InjectMocks
+    private FeedbackDigestService digestService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(digestService, "cacheSize", 10);
+        digestService.init();
+        // The repository cuts descriptions to maxChars, as the database would
+        when(feedbackRepository.streamDescriptions(any(), any(), anyInt())).thenAnswer(invocation -> {
+            int maxChars = invocation.getArgument(2);
+            return Stream.of("short", "x".repeat(30), "last one")
+                    .map(text -> text.length() > maxChars ? text.substring(0, maxChars) : text);
+        });
+    }
+
+    @Test
+    void itemsAreTruncatedOnTheServer() throws IOException {
+        JsonNode digest = digest(CLOSED_DAY, CLOSED_DAY, 10, 1000);
+
+        assertThat(digest.get("items")).extracting(JsonNode::asText)
+                .containsExactly("short", "xxxxxxxxxx [truncated]", "last one");
+        assertThat(digest.get("truncatedItems").asInt()).isEqualTo(1);
+        assertThat(digest.get("budgetExhausted").asBoolean()).isFalse();
+    }
+
+    @Test
+    void itemsStopAtTheTotalBudget() throws IOException {
+        JsonNode digest = digest(CLOSED_DAY, CLOSED_DAY, 10, 30);
+
+        assertThat(digest.get("items")).extracting(JsonNode::asText)
+                .containsExactly("short", "xxxxxxxxxx [truncated]");
+        assertThat(digest.get("totalChars").asInt()).isEqualTo(27);
+        assertThat(digest.get("budgetExhausted").asBoolean()).isTrue();
+    }
+
+    @Test
+    void closedDaysAreReadOnceUntilEvicted() throws IOException {
+        digest(CLOSED_DAY, CLOSED_DAY, 10, 1000);
+        digest(CLOSED_DAY, CLOSED_DAY, 10, 500);
+        verify(feedbackRepository, times(1)).streamDescriptions(any(), any(), anyInt());
+
+        digestService.evict(CLOSED_DAY);
+        digest(CLOSED_DAY, CLOSED_DAY, 10, 1000);
+        verify(feedbackRepository, times(2)).streamDescriptions(any(), any(), anyInt());
+    }
+
+    @Test
+    void todayIsNeverCached() throws IOException {
+        LocalDate today = LocalDate.now();
+        digest(today, today, 10, 1000);
+        digest(today, today, 10, 1000);
+
+        verify(feedbackRepository, times(2)).streamDescriptions(any(), any(), anyInt());
+    }
+
+    @Test
+    void rangesShareOneBudget() throws IOException {
+        JsonNode digest = digest(CLOSED_DAY.minusDays(1), CLOSED_DAY, 100, 80);
+
+        assertThat(digest.get("itemCount").asInt()).isEqualTo(5);
+        assertThat(digest.get("budgetExhausted").asBoolean()).isTrue();
+    }
+
+    private JsonNode digest(LocalDate from, LocalDate to, int maxItemChars, int maxTotalChars) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        digestService.writeDigest(from, to, maxItemChars, maxTotalChars, false, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+}
@@ -0,0 +1,127 @@
+package com.rajalakshmi.feedbackservice.service;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+import com.rajalakshmi.feedbackservice.model.FeedbackCluster;
+import com.rajalakshmi.feedbackservice.repository.ClusterCount;
+import com.rajalakshmi.feedbackservice.repository.ClusterMember;
+import com.rajalakshmi.feedbackservice.repository.FeedbackRepository;
+import com.rajalakshmi.feedbackservice.storage.FeedbackArchive;
+import com.rajalakshmi.feedbackservice.storage.FeedbackPartitions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeedbackServiceClusterTests {
+
+    private static final YearMonth ARCHIVED = YearMonth.of(2024, 1);
+    private static final YearMonth LIVE = ARCHIVED.plusMonths(1);
+    private static final LocalDate FROM = ARCHIVED.atDay(20);
+    private static final LocalDate TO = LIVE.atDay(10);
+
+    @Mock
+    private FeedbackRepository feedbackRepository;
+
+    @Mock
+    private FeedbackArchive feedbackArchive;
+
+    @Mock
+    private FeedbackPartitions feedbackPartitions;
+
+    @InjectMocks
+    private FeedbackService feedbackService;
+
+    @BeforeEach
+    void setUp() {
+        // Cluster 7 started in the archived month and kept growing after it; cluster 9 is archived only
+        lenient().when(feedbackArchive.archivedMonths()).thenReturn(new TreeSet<>(List.of(ARCHIVED.minusMonths(1),
+                ARCHIVED)));
+        lenient().doAnswer(invocation -> {
+            FeedbackArchive.ClusterRowVisitor visitor = invocation.getArgument(3);
+            visitor.visit(7, 7, 1L, 2, ARCHIVED.atDay(21).atStartOfDay());
+            visitor.visit(8, 7, 2L, 4, ARCHIVED.atDay(22).atStartOfDay());
+            visitor.visit(9, 9, 5L, 5, ARCHIVED.atDay(23).atStartOfDay());
+            return null;
+        }).when(feedbackArchive).forEachClusterRow(eq(ARCHIVED), any(), any(), any());
+        lenient().when(feedbackArchive.findById(7L)).thenReturn(Optional.of(feedback(7, "Checkout crashes")));
+        lenient().when(feedbackArchive.findById(9L)).thenReturn(Optional.of(feedback(9, "Dark mode please")));
+
+        LocalDateTime first = LIVE.atDay(2).atStartOfDay();
+        ClusterCount live = new ClusterCount(7L, 2L, 2L, 3.0, 20L, first, first.plusDays(1));
+        ClusterCount single = new ClusterCount(21L, 1L, 1L, 1.0, 21L, first, first);
+        lenient().when(feedbackRepository.countClusters(any(), any(), any())).thenReturn(List.of(live, single));
+        lenient().when(feedbackRepository.findClusterMembers(any(), any(), anyCollection()))
+                .thenReturn(List.of(new ClusterMember(7L, 2L), new ClusterMember(7L, 3L)));
+        lenient().when(feedbackRepository.findAllById(any())).thenAnswer(invocation -> {
+            Iterable<Long> ids = invocation.getArgument(0);
+            return ids.iterator().hasNext() ? List.of(feedback(21, "Wrong total")) : List.of();
+        });
+    }
+
+    @Test
+    void clustersSpanningTheArchiveAreMerged() {
+        List<FeedbackCluster> clusters = feedbackService.getClusters(FROM, TO, 2, true);
+
+        assertThat(clusters).hasSize(2);
+        FeedbackCluster merged = clusters.get(0);
+        assertThat(merged.clusterId()).isEqualTo(7L);
+        assertThat(merged.count()).isEqualTo(4);
+        assertThat(merged.users()).as("user 2 posted on both sides").isEqualTo(3);
+        assertThat(merged.averageRating()).isEqualTo(3.0);
+        assertThat(merged.description()).isEqualTo("Checkout crashes");
+        assertThat(merged.firstSeen()).isEqualTo(ARCHIVED.atDay(21).atStartOfDay());
+        assertThat(merged.lastSeen()).isEqualTo(LIVE.atDay(3).atStartOfDay());
+        assertThat(clusters.get(1).clusterId()).as("ties go to the earliest feedback").isEqualTo(9L);
+        assertThat(clusters.get(1).description()).isEqualTo("Dark mode please");
+        verify(feedbackRepository).countClusters(any(), any(), eq(Pageable.unpaged()));
+        verify(feedbackArchive, never()).forEachClusterRow(eq(ARCHIVED.minusMonths(1)), any(), any(), any());
+    }
+
+    @Test
+    void archivedMonthsAreLeftOutUnlessAsked() {
+        List<FeedbackCluster> clusters = feedbackService.getClusters(FROM, TO, 2, false);
+
+        assertThat(clusters).extracting(FeedbackCluster::clusterId).containsExactly(7L, 21L);
+        assertThat(clusters.get(0).count()).isEqualTo(2);
+        verify(feedbackArchive, never()).forEachClusterRow(any(), any(), any(), any());
+    }
+
+    @Test
+    void monthBeingArchivedIsCountedFromTheTable() {
+        when(feedbackPartitions.isActive()).thenReturn(true);
+        when(feedbackPartitions.months()).thenReturn(new TreeSet<>(List.of(ARCHIVED, LIVE)));
+
+        List<FeedbackCluster> clusters = feedbackService.getClusters(FROM, TO, 2, true);
+
+        assertThat(clusters).extracting(FeedbackCluster::count).containsExactly(2L, 1L);
+        verify(feedbackArchive, never()).forEachClusterRow(any(), any(), any(), any());
+    }
+
+    private static Feedback feedback(long id, String description) {
+        Feedback feedback = new Feedback();
+        feedback.setId(id);
+        feedback.setDescription(description);
+        return feedback;
+    }
+}
@@ -0,0 +1,44 @@
+package com.rajalakshmi.feedbackservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStorageServiceTests {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 13};
+
+    private final FileStorageService storage = new FileStorageService();
+
+    @Test
+    void storedNameTakesItsExtensionFromTheCheckedType() throws IOException {
+        String fileName = storage.storeFile(new MockMultipartFile("file", "Photo.PNG", "image/png", PNG));
+        try {
+            assertThat(fileName).endsWith(".png");
+            assertThat(storage.contentType(fileName)).contains(MediaType.IMAGE_PNG);
+        } finally {
+            Files.deleteIfExists(Paths.get("uploads", fileName));
+        }
+    }
+
+    @Test
+    void rejectsAnythingThatIsNotAConsistentImage() {
+        byte[] html = "<script>alert(1)</script>".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> storage.storeFile(new MockMultipartFile("file", "x.html", "text/html", html)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.storeFile(new MockMultipartFile("file", "x.png", "image/png", html)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> storage.storeFile(new MockMultipartFile("file", "x.html", "image/png", PNG)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(storage.contentType("legacy.html")).isEmpty();
+    }
+}
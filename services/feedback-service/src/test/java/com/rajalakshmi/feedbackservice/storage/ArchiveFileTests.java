@@ -0,0 +1,87 @@
+package com.rajalakshmi.feedbackservice.storage;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArchiveFileTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rowsSurviveARoundTrip() throws IOException {
+        Path file = dir.resolve("feedback-2024-01.fba");
+        ArchiveFile.write(file, List.of(
+                feedback(7L, 1L, 5, "Great dosa", "/uploads/a.png", LocalDateTime.of(2024, 1, 3, 8, 15, 0, 123_000)),
+                feedback(9L, null, 2, null, null, LocalDateTime.of(2024, 1, 2, 19, 45))));
+
+        ArchiveFile archive = ArchiveFile.read(file);
+
+        assertThat(archive.rowCount()).isEqualTo(2);
+        assertThat(archive.rows(null))
+                .usingRecursiveFieldByFieldElementComparator()
+                .containsExactly(
+                        feedback(7L, 1L, 5, "Great dosa", "/uploads/a.png",
+                                LocalDateTime.of(2024, 1, 3, 8, 15, 0, 123_000)),
+                        feedback(9L, null, 2, null, null, LocalDateTime.of(2024, 1, 2, 19, 45)));
+    }
+
+    @Test
+    void columnsAndRowsCanBeReadSelectively() throws IOException {
+        Path file = dir.resolve("feedback-2024-02.fba");
+        ArchiveFile.write(file, List.of(
+                feedback(10L, 1L, 4, "Rice was cold", null, LocalDateTime.of(2024, 2, 1, 12, 0)),
+                feedback(11L, 2L, 3, "Okay", null, LocalDateTime.of(2024, 2, 1, 13, 0)),
+                feedback(12L, 1L, 1, "Too salty", null, LocalDateTime.of(2024, 2, 2, 12, 0))));
+
+        ArchiveFile archive = ArchiveFile.read(file);
+
+        assertThat(archive.userIds()).containsExactly(1L, 2L, 1L);
+        assertThat(archive.descriptions()).containsExactly("Rice was cold", "Okay", "Too salty");
+        assertThat(archive.rows(new int[]{2})).extracting(Feedback::getId).containsExactly(12L);
+        assertThat(archive.mayContainId(11L)).isTrue();
+        assertThat(archive.mayContainId(13L)).isFalse();
+    }
+
+    @Test
+    void emptyArchivesContainNothing() throws IOException {
+        Path file = dir.resolve("feedback-2024-03.fba");
+        ArchiveFile.write(file, List.of());
+
+        ArchiveFile archive = ArchiveFile.read(file);
+
+        assertThat(archive.rowCount()).isZero();
+        assertThat(archive.rows(null)).isEmpty();
+        assertThat(archive.mayContainId(1L)).isFalse();
+    }
+
+    @Test
+    void rejectsFilesThatAreNotArchives() throws IOException {
+        Path file = dir.resolve("feedback-2024-04.fba");
+        Files.writeString(file, "not an archive");
+
+        assertThatThrownBy(() -> ArchiveFile.read(file)).isInstanceOf(IOException.class);
+    }
+
+    private static Feedback feedback(Long id, Long userId, int rating, String description, String imageUrl,
+                                     LocalDateTime createdAt) {
+        Feedback feedback = new Feedback();
+        feedback.setId(id);
+        feedback.setUserId(userId);
+        feedback.setRating(rating);
+        feedback.setDescription(description);
+        feedback.setImageUrl(imageUrl);
+        feedback.setCreatedAt(createdAt);
+        return feedback;
+    }
+}
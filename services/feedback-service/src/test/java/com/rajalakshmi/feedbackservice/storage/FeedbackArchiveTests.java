@@ -0,0 +1,70 @@
+package com.rajalakshmi.feedbackservice.storage;
+
+import com.rajalakshmi.feedbackservice.model.Feedback;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeedbackArchiveTests {
+
+    @TempDir
+    Path dir;
+
+    private final StorageProperties properties = new StorageProperties();
+
+    private final FeedbackArchive archive = new FeedbackArchive();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties.getArchive().setDirectory(dir);
+        properties.getArchive().setCacheSize(2);
+        ReflectionTestUtils.setField(archive, "properties", properties);
+        archive.write(YearMonth.of(2024, 1), List.of(
+                feedback(1L, LocalDateTime.of(2024, 1, 5, 9, 0)),
+                feedback(2L, LocalDateTime.of(2024, 1, 30, 18, 0))));
+        archive.write(YearMonth.of(2024, 2), List.of(feedback(3L, LocalDateTime.of(2024, 2, 1, 0, 0))));
+        archive.write(YearMonth.of(2024, 3), List.of(feedback(4L, LocalDateTime.of(2024, 3, 10, 12, 0))));
+    }
+
+    @Test
+    void leastRecentlyReadMonthIsDroppedPastTheCacheSize() throws IOException {
+        ArchiveFile january = archive.read(YearMonth.of(2024, 1));
+        ArchiveFile february = archive.read(YearMonth.of(2024, 2));
+        assertThat(archive.read(YearMonth.of(2024, 1))).isSameAs(january);
+
+        archive.read(YearMonth.of(2024, 3));
+
+        assertThat(archive.read(YearMonth.of(2024, 1))).isSameAs(january);
+        assertThat(archive.read(YearMonth.of(2024, 2))).isNotSameAs(february);
+    }
+
+    @Test
+    void rangeReadsOnlyTheMonthsItOverlaps() throws IOException {
+        // A month outside the range that could not be parsed would fail the read
+        Files.writeString(dir.resolve("feedback-2024-03.fba"), "not an archive");
+
+        List<Feedback> rows = archive.findAll(LocalDateTime.of(2024, 1, 20, 0, 0), LocalDateTime.of(2024, 3, 1, 0, 0));
+
+        assertThat(rows).extracting(Feedback::getId).containsExactly(2L, 3L);
+    }
+
+    private static Feedback feedback(Long id, LocalDateTime createdAt) {
+        Feedback feedback = new Feedback();
+        feedback.setId(id);
+        feedback.setUserId(1L);
+        feedback.setRating(3);
+        feedback.setDescription("Feedback " + id);
+        feedback.setCreatedAt(createdAt);
+        return feedback;
+    }
+}
@@ -1,7 +0,0 @@
-package com.rajalakshmi;
-
-public class Main {
-    public static void main(String[] args) {
-        System.out.println("Hello, World!");
-    }
-}
\ No newline at end of file